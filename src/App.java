@@ -16,7 +16,10 @@ public class App {
             cli = new Cli(sc);
         } else {
             try {
-                UrbanCommunity urbanCommunity = ConfigParser.loadConfigFile(new File(args[0]));
+                File file = new File(args[0]);
+                // the graphs of the PACE challenge have numbered cities
+                UrbanCommunity urbanCommunity = args[0].endsWith(".gr") ? ConfigParser.loadPaceGraph(file)
+                        : ConfigParser.loadConfigFile(file);
                 cli = new Cli(sc, urbanCommunity);
             } catch (IOException err) {
                 System.err.println("Can't access the config file!");
@@ -1,14 +1,28 @@
 package core;
 
-import exceptions.AccessibilityException;
+import graph.BitsetGraph;
+import graph.Graph;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public abstract class Algorithm {
 
+    /**
+     * The largest number of cities of the exact algorithm, whose memory grows
+     * with the square of the number of cities.
+     */
+    public static final int MAX_EXACT_CITIES = 5000;
+
     /**
      * The first and most naive solution to solve the problem. Add a charging point
      * in each city.
@@ -16,8 +30,8 @@ public abstract class Algorithm {
      * @param urbanCommunity The urban community.
      */
     public static void addAllChargingPoint(UrbanCommunity urbanCommunity) {
-        for (City city : urbanCommunity.getCities()) {
-            city.addChargingPoint();
+        for (int i = 0; i < urbanCommunity.getCities().length; i++) {
+            urbanCommunity.setChargingPoint(i, true);
         }
     }
 
@@ -31,117 +45,672 @@ public abstract class Algorithm {
      */
     public static void naiveAlgorithm(UrbanCommunity urbanCommunity, int numberIteration) {
         int i = 0;
-        while (i < numberIteration) {
+        while (i < numberIteration && urbanCommunity.getCities().length > 0) {
             int randomIndex = new Random().nextInt(urbanCommunity.getCities().length);
-            City randomCity = urbanCommunity.getCities()[randomIndex];
-            if (randomCity.hasChargingPoint()) {
-                try {
-                    urbanCommunity.removeChargingPoint(randomCity.getName());
-                } catch (AccessibilityException ignored) {
-                }
+            if (urbanCommunity.hasChargingPoint(randomIndex)) {
+                urbanCommunity.tryRemoveChargingPoint(randomIndex);
             } else {
-                urbanCommunity.addChargingPoint(randomCity.getName());
+                urbanCommunity.addChargingPoint(randomIndex);
             }
             i++;
         }
     }
 
-    /**
-     * Returns the list of city in the urban community who had a charging point.
-     * 
-     * @param urbanCommunity The urban community
-     * @return The list of cities
-     */
-    private static Set<City> citiesWithChargingPoint(UrbanCommunity urbanCommunity) {
-        Set<City> res = new HashSet<>();
-        for (City city : urbanCommunity.getCities())
-            if (city.hasChargingPoint())
-                res.add(city);
-        return res;
-    }
-
     /**
      * An improved version of naiveAlgorithm. We take the result with the minimal
-     * number of charging points.
+     * number of charging points, and stop as soon as it reaches the lower bound
+     * of the urban community.
      * 
      * @param urbanCommunity  The urban community.
      * @param numberIteration The number of iterations, higher than the number of
      *                        cities is recommended.
      */
     public static void lessNaiveAlgorithm(UrbanCommunity urbanCommunity, int numberIteration) {
+        lessNaiveAlgorithm(urbanCommunity, numberIteration, new Budget(Long.MAX_VALUE));
+    }
+
+    /**
+     * The less naive algorithm within a budget, which receives the better valid
+     * results and stops the search when it is exhausted.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param numberIteration The number of iterations without improvement.
+     * @param budget          The budget of the search.
+     */
+    public static void lessNaiveAlgorithm(UrbanCommunity urbanCommunity, int numberIteration, Budget budget) {
+        Random random = new Random();
         int i = 0;
-        Set<City> citiesCharged = citiesWithChargingPoint(urbanCommunity); // our score is the size of this set
+        long iteration = 0;
+        ChargingPlan best = urbanCommunity.copyPlan(); // our score is the number of charging points
+        int lowerBound = urbanCommunity.lowerBound();
+        budget.offer(urbanCommunity);
 
         // Search for the best score
-        while (i < numberIteration) {
-            int randomIndex = new Random().nextInt(urbanCommunity.getCities().length);
-            City randomCity = urbanCommunity.getCities()[randomIndex];
+        while (i < numberIteration && urbanCommunity.getCities().length > 0
+                && !(best.isValid() && best.getScore() <= lowerBound)
+                && ((++iteration & 1023) != 0 || !budget.isExhausted())) {
+            int randomIndex = random.nextInt(urbanCommunity.getCities().length);
 
-            if (randomCity.hasChargingPoint()) {
-                try {
-                    urbanCommunity.removeChargingPoint(randomCity.getName());
-                } catch (AccessibilityException ignored) {
-                }
+            if (urbanCommunity.hasChargingPoint(randomIndex)) {
+                urbanCommunity.tryRemoveChargingPoint(randomIndex);
             } else {
-                urbanCommunity.addChargingPoint(randomCity.getName());
+                urbanCommunity.addChargingPoint(randomIndex);
             }
 
-            if (citiesWithChargingPoint(urbanCommunity).size() < citiesCharged.size()) {
+            if (urbanCommunity.urbanCommunityScore() < best.getScore()) {
                 i = 0;
-                citiesCharged = citiesWithChargingPoint(urbanCommunity);
+                best = urbanCommunity.copyPlan();
+                budget.offer(urbanCommunity);
             } else {
                 i++;
             }
         }
 
+        if (best.isValid() && best.getScore() <= lowerBound)
+            budget.proveOptimal();
+
         // Apply the best solutions
-        for (City city : urbanCommunity.getCities()) {
-            // bypass the constraint but it's fine ;)
-            if (citiesCharged.contains(city)) {
-                city.addChargingPoint();
+        // bypass the constraint but it's fine ;)
+        urbanCommunity.setChargingPoints(best.getChargingPoints());
+    }
+
+    /**
+     * A better solution to find the solution. It's use a heuristic: the
+     * charging points are removed when possible, from the cities with the
+     * fewest neighbors to the ones with the most.
+     * 
+     * @param urbanCommunity The urban community.
+     */
+    public static void algoOpti(UrbanCommunity urbanCommunity) {
+        algoOpti(urbanCommunity, CityOrder.ASCENDING_DEGREE);
+    }
+
+    /**
+     * The heuristic of algoOpti, removing the charging points in the order
+     * given in parameter. The ties are broken by index.
+     *
+     * @param urbanCommunity The urban community.
+     * @param order          The order of the removals.
+     */
+    public static void algoOpti(UrbanCommunity urbanCommunity, CityOrder order) {
+        removeInOrder(urbanCommunity, order, null);
+    }
+
+    /**
+     * The heuristic of algoOpti, removing the charging points in the order
+     * given in parameter. The ties are broken randomly, so several runs with
+     * different seeds give different results.
+     *
+     * @param urbanCommunity The urban community.
+     * @param order          The order of the removals.
+     * @param seed           The seed of the random generator.
+     */
+    public static void algoOpti(UrbanCommunity urbanCommunity, CityOrder order, long seed) {
+        removeInOrder(urbanCommunity, order, new SplittableRandom(seed));
+    }
+
+    /**
+     * Remove the charging points when possible in the order given in parameter.
+     *
+     * @param urbanCommunity The urban community.
+     * @param order          The order of the removals.
+     * @param random         The random generator breaking the ties, null to
+     *                       break them by index.
+     */
+    private static void removeInOrder(UrbanCommunity urbanCommunity, CityOrder order, SplittableRandom random) {
+        int[] cities = order.sort(urbanCommunity.getGraph(), random);
+        if (order == CityOrder.REDUNDANCY) {
+            removeByRedundancy(urbanCommunity, cities);
+            return;
+        }
+
+        for (int city : cities) {
+            if (urbanCommunity.hasChargingPoint(city)) {
+                urbanCommunity.tryRemoveChargingPoint(city);
+            }
+        }
+    }
+
+    /**
+     * Remove the charging points in the dynamic order of
+     * {@link CityOrder#REDUNDANCY}: the key of a charging point is the smallest
+     * coverage in its closed neighborhood, the one with the largest key is
+     * removed while it is at least two, and the keys two roads away are
+     * updated. A city whose key changes goes before the cities which already
+     * had this key.
+     *
+     * @param urbanCommunity The urban community.
+     * @param cities         The cities in the order of the ties.
+     */
+    private static void removeByRedundancy(UrbanCommunity urbanCommunity, int[] cities) {
+        ChargingPlan plan = urbanCommunity.copyPlan();
+        Graph graph = plan.getGraph();
+        int maxCoverage = 0;
+        for (int city : cities)
+            maxCoverage = Math.max(maxCoverage, graph.degree(city) + 2);
+
+        // the queue lists are last in, first out, so the ties are inserted backwards
+        BucketQueue queue = new BucketQueue(cities.length, maxCoverage);
+        int[] smallest = new int[1];
+        IntConsumer smallestCoverage = neighbor -> smallest[0] = Math.min(smallest[0], plan.getCoverage(neighbor));
+        for (int i = cities.length - 1; i >= 0; i--) {
+            if (plan.hasChargingPoint(cities[i])) {
+                smallest[0] = plan.getCoverage(cities[i]);
+                graph.forEachNeighbor(cities[i], smallestCoverage);
+                queue.insert(cities[i], smallest[0]);
+            }
+        }
+
+        IntConsumer updateKey = city -> {
+            if (queue.contains(city)) {
+                smallest[0] = plan.getCoverage(city);
+                graph.forEachNeighbor(city, smallestCoverage);
+                // an unchanged key keeps the city at its place among the ties
+                if (queue.getKey(city) != smallest[0])
+                    queue.update(city, smallest[0]);
+            }
+        };
+        IntConsumer updateAround = city -> {
+            updateKey.accept(city);
+            graph.forEachNeighbor(city, updateKey);
+        };
+        while (queue.maxKey() >= 2) {
+            int city = queue.pollMax();
+            plan.remove(city);
+            updateAround.accept(city);
+            graph.forEachNeighbor(city, updateAround);
+        }
+
+        urbanCommunity.setChargingPoints(plan.getChargingPoints());
+    }
+
+    /**
+     * An exact solution, it searches the minimum number of charging points with
+     * a branch and bound. The search stops when the budget is exhausted, the
+     * best solution found is applied anyway, or as soon as a solution reaches
+     * the lower bound of the urban community.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param nodeLimit       The maximum number of nodes of the search.
+     * @param timeLimitMillis The maximum duration of the search, in
+     *                        milliseconds.
+     * @return True if the solution is proven optimal.
+     * @throws IllegalArgumentException If the urban community has more than
+     *                                  MAX_EXACT_CITIES cities.
+     */
+    public static boolean exactAlgorithm(UrbanCommunity urbanCommunity, long nodeLimit, long timeLimitMillis) {
+        return exactAlgorithm(urbanCommunity, nodeLimit, new Budget(timeLimitMillis));
+    }
+
+    /**
+     * The exact algorithm within a budget, which receives the better solutions
+     * and stops the search when it is exhausted. The search is also pruned by
+     * the best solution of the budget, which is applied if it is proven
+     * optimal.
+     *
+     * @param urbanCommunity The urban community.
+     * @param nodeLimit      The maximum number of nodes of the search.
+     * @param budget         The budget of the search.
+     * @return True if the solution is proven optimal.
+     * @throws IllegalArgumentException If the urban community has more than
+     *                                  MAX_EXACT_CITIES cities.
+     */
+    public static boolean exactAlgorithm(UrbanCommunity urbanCommunity, long nodeLimit, Budget budget) {
+        int nbCities = urbanCommunity.getCities().length;
+        if (nbCities > MAX_EXACT_CITIES)
+            throw new IllegalArgumentException("The exact algorithm is limited to " + MAX_EXACT_CITIES + " cities");
+        long[] uncovered = new long[BitsetGraph.words(nbCities)];
+        for (int i = 0; i < nbCities; i++)
+            if (!urbanCommunity.isCoveredOutside(i))
+                uncovered[i >>> 6] |= 1L << i;
+
+        BranchAndBound branchAndBound = new BranchAndBound(urbanCommunity.getGraph(), nodeLimit, budget);
+        boolean optimal = branchAndBound.solve(uncovered, urbanCommunity.lowerBound());
+
+        urbanCommunity.setChargingPoints(branchAndBound.getBest());
+        if (optimal) {
+            // the search may have been pruned by a better solution of another solver
+            if (budget.getBestScore() < urbanCommunity.urbanCommunityScore())
+                budget.applyBest(urbanCommunity);
+            budget.proveOptimal();
+        }
+        return optimal;
+    }
+
+    /**
+     * A constructive solution, it adds a charging point in the city covering the
+     * most uncovered cities until every city is covered, then removes the
+     * charging points which became useless.
+     *
+     * <p>
+     * The cities are kept in a bucket queue by gain, and the gains are decreased
+     * when their cities get covered, so the run is linear in the number of
+     * roads.
+     *
+     * @param urbanCommunity The urban community.
+     */
+    public static void greedyAlgorithm(UrbanCommunity urbanCommunity) {
+        Graph graph = urbanCommunity.getGraph();
+        int nbCities = graph.order();
+        int maxGain = 0;
+        boolean[] covered = new boolean[nbCities];
+        for (int i = 0; i < nbCities; i++) {
+            urbanCommunity.setChargingPoint(i, false);
+            covered[i] = urbanCommunity.isCoveredOutside(i);
+            maxGain = Math.max(maxGain, graph.degree(i) + 1);
+        }
+
+        // the gain of a city is the number of uncovered cities in its closed neighborhood
+        BucketQueue queue = new BucketQueue(nbCities, maxGain);
+        for (int i = 0; i < nbCities; i++) {
+            int[] gain = { covered[i] ? 0 : 1 };
+            graph.forEachNeighbor(i, neighbor -> {
+                if (!covered[neighbor])
+                    gain[0]++;
+            });
+            queue.insert(i, gain[0]);
+        }
+
+        IntConsumer decreaseGain = city -> {
+            if (queue.contains(city))
+                queue.update(city, queue.getKey(city) - 1);
+        };
+        IntConsumer cover = city -> {
+            if (!covered[city]) {
+                covered[city] = true;
+                decreaseGain.accept(city);
+                graph.forEachNeighbor(city, decreaseGain);
+            }
+        };
+
+        int[] chosen = new int[nbCities];
+        int nbChosen = 0;
+        while (queue.maxKey() > 0) {
+            int city = queue.pollMax();
+            chosen[nbChosen++] = city;
+            urbanCommunity.setChargingPoint(city, true);
+            cover.accept(city);
+            graph.forEachNeighbor(city, cover);
+        }
+
+        // the last charging points may cover the cities of the first ones
+        for (int i = nbChosen - 1; i >= 0; i--)
+            urbanCommunity.tryRemoveChargingPoint(chosen[i]);
+    }
+
+    /**
+     * The search of lessNaiveAlgorithm on a copy of the charging points: it
+     * removes or adds a charging point in a random city at each iteration, and
+     * stops after numberIteration iterations without improvement or when the
+     * lower bound is reached.
+     *
+     * @param plan            The valid charging points, modified by the search.
+     * @param numberIteration The number of iterations without improvement.
+     * @param lowerBound      The lower bound of the number of charging points.
+     * @param random          The random generator of this search.
+     * @param budget          The budget of the search, which receives the best
+     *                        charging points every 1024 iterations.
+     * @return The best charging points found, packed in bits.
+     */
+    private static long[] randomSearch(ChargingPlan plan, int numberIteration, int lowerBound,
+            SplittableRandom random, Budget budget) {
+        int nbCities = plan.getGraph().order();
+        long[] best = plan.getChargingPoints().clone();
+        int bestScore = plan.getScore();
+        int i = 0;
+        long iteration = 0;
+
+        while (i < numberIteration && nbCities > 0 && bestScore > lowerBound) {
+            if ((++iteration & 1023) == 0) {
+                budget.offer(best, bestScore);
+                if (budget.isExhausted())
+                    break;
+            }
+            int randomIndex = random.nextInt(nbCities);
+            if (plan.hasChargingPoint(randomIndex)) {
+                if (plan.canRemove(randomIndex))
+                    plan.remove(randomIndex);
+            } else {
+                plan.add(randomIndex);
+            }
+
+            if (plan.getScore() < bestScore) {
+                i = 0;
+                bestScore = plan.getScore();
+                System.arraycopy(plan.getChargingPoints(), 0, best, 0, best.length);
             } else {
-                city.removeChargingPoint();
+                i++;
             }
         }
+        budget.offer(best, bestScore);
+        if (bestScore <= lowerBound)
+            budget.proveOptimal();
+
+        return best;
     }
 
     /**
-     * Sorts cities by degree and choose the order.
-     * 
+     * A parallel version of lessNaiveAlgorithm. Several searches start with a
+     * charging point in each city and run at the same time on the common
+     * fork-join pool, each one with its own copy of the charging points and its
+     * own random generator, split from the seed. The best result is applied.
+     *
+     * <p>
+     * Each search has its own budget and stops early when it reaches the lower
+     * bound of the urban community, so the result only depends on the seed,
+     * not on the scheduling of the searches.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param numberIteration The number of iterations without improvement of each
+     *                        search.
+     * @param nbStarts        The number of searches.
+     * @param seed            The seed of the random generators.
+     */
+    public static void multiStartAlgorithm(UrbanCommunity urbanCommunity, int numberIteration, int nbStarts,
+            long seed) {
+        multiStart(urbanCommunity, numberIteration, nbStarts, seed, null);
+    }
+
+    /**
+     * The parallel less naive algorithm within a budget, which receives the
+     * better results of the searches and stops them when it is exhausted. The
+     * result then also depends on the speed of the searches.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param numberIteration The number of iterations without improvement of each
+     *                        search.
+     * @param nbStarts        The number of searches.
+     * @param seed            The seed of the random generators.
+     * @param budget          The budget of the searches.
+     */
+    public static void multiStartAlgorithm(UrbanCommunity urbanCommunity, int numberIteration, int nbStarts,
+            long seed, Budget budget) {
+        multiStart(urbanCommunity, numberIteration, nbStarts, seed, budget);
+    }
+
+    /**
+     * Run the searches of the multi-start algorithm.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param numberIteration The number of iterations without improvement of each
+     *                        search.
+     * @param nbStarts        The number of searches.
+     * @param seed            The seed of the random generators.
+     * @param budget          The budget shared by the searches, or null to give
+     *                        each search its own budget, so a search reaching
+     *                        the lower bound does not stop the others.
+     */
+    private static void multiStart(UrbanCommunity urbanCommunity, int numberIteration, int nbStarts, long seed,
+            Budget budget) {
+        addAllChargingPoint(urbanCommunity);
+        int lowerBound = urbanCommunity.lowerBound();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<long[]>> searches = new ArrayList<>();
+        for (int i = 0; i < nbStarts; i++) {
+            ChargingPlan plan = urbanCommunity.copyPlan();
+            SplittableRandom searchRandom = random.split();
+            Budget searchBudget = budget != null ? budget : new Budget(Long.MAX_VALUE);
+            searches.add(() -> randomSearch(plan, numberIteration, lowerBound, searchRandom, searchBudget));
+        }
+
+        long[] best = null;
+        int bestScore = Integer.MAX_VALUE;
+        for (Future<long[]> result : ForkJoinPool.commonPool().invokeAll(searches)) {
+            long[] chargingPoints;
+            try {
+                chargingPoints = result.get();
+            } catch (InterruptedException | ExecutionException err) {
+                throw new IllegalStateException("A search failed", err);
+            }
+            int score = BranchAndBound.cardinality(chargingPoints);
+            if (score < bestScore) {
+                best = chargingPoints;
+                bestScore = score;
+            }
+        }
+
+        if (best != null)
+            urbanCommunity.setChargingPoints(best);
+    }
+
+    /**
+     * A simulated annealing starting from the current charging points, which
+     * may be invalid. Random moves (add, remove, or move a charging point to a
+     * neighbor) are accepted if they do not increase the cost, or with a
+     * probability decreasing with the temperature. The best valid plan found is
+     * applied, and the search stops when it reaches the lower bound of the urban
+     * community.
+     *
+     * @param urbanCommunity   The urban community.
+     * @param iterations       The maximum number of iterations,
+     *                         Long.MAX_VALUE to only use the time limit.
+     * @param timeLimitMillis  The maximum duration, in milliseconds.
+     * @param startTemperature The temperature at the start, around 1 to accept
+     *                         a few bad moves.
+     * @param endTemperature   The temperature at the end, lower than the start
+     *                         temperature.
+     * @param seed             The seed of the random generator.
+     */
+    public static void annealingAlgorithm(UrbanCommunity urbanCommunity, long iterations, long timeLimitMillis,
+            double startTemperature, double endTemperature, long seed) {
+        annealingAlgorithm(urbanCommunity, iterations, new Budget(timeLimitMillis), startTemperature,
+                endTemperature, seed);
+    }
+
+    /**
+     * The simulated annealing within a budget, which receives the better valid
+     * plans and stops the search when it is exhausted. Without iteration limit,
+     * the temperature decreases during the time left in the budget.
+     *
+     * @param urbanCommunity   The urban community.
+     * @param iterations       The maximum number of iterations,
+     *                         Long.MAX_VALUE to only use the budget.
+     * @param budget           The budget of the search.
+     * @param startTemperature The temperature at the start.
+     * @param endTemperature   The temperature at the end.
+     * @param seed             The seed of the random generator.
+     */
+    public static void annealingAlgorithm(UrbanCommunity urbanCommunity, long iterations, Budget budget,
+            double startTemperature, double endTemperature, long seed) {
+        LocalSearch search = new LocalSearch(urbanCommunity.copyPlan(), urbanCommunity.lowerBound(), iterations,
+                budget, seed);
+        urbanCommunity.setChargingPoints(search.anneal(startTemperature, endTemperature));
+    }
+
+    /**
+     * A tabu search starting from the current charging points, which may be
+     * invalid. Each time the plan is valid, a charging point is removed, then
+     * charging points are moved to cover the uncovered cities, except on the
+     * cities changed during the last iterations. The best valid plan found is
+     * applied, and the search stops when it reaches the lower bound of the urban
+     * community.
+     *
+     * @param urbanCommunity  The urban community.
+     * @param iterations      The maximum number of iterations, Long.MAX_VALUE
+     *                        to only use the time limit.
+     * @param timeLimitMillis The maximum duration, in milliseconds.
+     * @param tenure          The number of iterations during which a changed
+     *                        city cannot be changed again.
+     * @param seed            The seed of the random generator.
+     */
+    public static void tabuAlgorithm(UrbanCommunity urbanCommunity, long iterations, long timeLimitMillis,
+            int tenure, long seed) {
+        tabuAlgorithm(urbanCommunity, iterations, new Budget(timeLimitMillis), tenure, seed);
+    }
+
+    /**
+     * The tabu search within a budget, which receives the better valid plans
+     * and stops the search when it is exhausted.
+     *
      * @param urbanCommunity The urban community.
-     * @param city           The cities array to sort.
-     * @param decr           If true, the array is sorted in the descending order.
-     * @return
+     * @param iterations     The maximum number of iterations, Long.MAX_VALUE to
+     *                       only use the budget.
+     * @param budget         The budget of the search.
+     * @param tenure         The number of iterations during which a changed
+     *                       city cannot be changed again.
+     * @param seed           The seed of the random generator.
      */
-    private static City[] sortCitiesByDegree(UrbanCommunity urbanCommunity, City[] city, boolean decr) {
-        City[] res = urbanCommunity.getCities().clone();
-        Arrays.sort(res, (x, y) -> {
-            int degreeX = urbanCommunity.getNeighbors(x.getName()).length;
-            int degreeY = urbanCommunity.getNeighbors(y.getName()).length;
-            if (decr)
-                return degreeY - degreeX;
-            else
-                return degreeX - degreeY;
-        });
+    public static void tabuAlgorithm(UrbanCommunity urbanCommunity, long iterations, Budget budget, int tenure,
+            long seed) {
+        LocalSearch search = new LocalSearch(urbanCommunity.copyPlan(), urbanCommunity.lowerBound(), iterations,
+                budget, seed);
+        urbanCommunity.setChargingPoints(search.tabu(tenure));
+    }
 
-        return res;
+    /**
+     * Improve valid charging points until they are a local optimum: the
+     * redundant charging points are removed, then a charging point is added to
+     * a city when it makes two charging points around it redundant, or one
+     * while covering more cities twice. Nothing happens if the charging points
+     * are invalid.
+     *
+     * @param urbanCommunity The urban community.
+     * @return The number of charging points removed.
+     */
+    public static int postOptimization(UrbanCommunity urbanCommunity) {
+        return postOptimization(urbanCommunity, new Budget(Long.MAX_VALUE));
     }
 
     /**
-     * A better solution to find the solution. It's use a heuristic.
-     * 
+     * The post optimization within a budget, which receives the result and
+     * stops the swaps when it is exhausted.
+     *
      * @param urbanCommunity The urban community.
+     * @param budget         The budget of the optimization.
+     * @return The number of charging points removed.
      */
-    public static void algoOpti(UrbanCommunity urbanCommunity) {
-        City[] cities = sortCitiesByDegree(urbanCommunity, urbanCommunity.getCities(), false);
-
-        for (City city : cities) {
-            if (city.hasChargingPoint()) {
-                try {
-                    urbanCommunity.removeChargingPoint(city.getName());
-                } catch (AccessibilityException ignored) {
-                }
+    public static int postOptimization(UrbanCommunity urbanCommunity, Budget budget) {
+        ChargingPlan plan = urbanCommunity.copyPlan();
+        int removed = new PostOptimizer(plan, budget).optimize();
+        urbanCommunity.setChargingPoints(plan.getChargingPoints());
+        return removed;
+    }
+
+    /**
+     * Reduce the urban community to its kernel, run the algorithm on the
+     * kernel and place the charging points found and the ones forced by the
+     * reduction on the urban community. The kernel has no charging point when
+     * the algorithm starts.
+     *
+     * @param urbanCommunity The urban community to work with.
+     * @param algorithm      The algorithm to run on the kernel.
+     * @return The number of cities of the kernel.
+     */
+    public static int kernelAlgorithm(UrbanCommunity urbanCommunity, Consumer<UrbanCommunity> algorithm) {
+        Kernel kernel = new Kernel(urbanCommunity);
+        algorithm.accept(kernel.getKernel());
+        kernel.lift();
+        return kernel.getKernel().getCities().length;
+    }
+
+    /**
+     * Split the urban community into its connected components and run the
+     * algorithm on each one at the same time, on the common fork-join pool.
+     * The charging points of the components are then placed on the urban
+     * community. A component where a city is the neighbor of all the other
+     * ones gets a single charging point without running the algorithm.
+     *
+     * <p>
+     * The algorithm must only modify the urban community it receives, and its
+     * limits, like the time limits, apply to each component.
+     *
+     * @param urbanCommunity The urban community to work with.
+     * @param algorithm      The algorithm to run on each component.
+     * @return The number of components.
+     */
+    public static int componentAlgorithm(UrbanCommunity urbanCommunity, Consumer<UrbanCommunity> algorithm) {
+        Components components = new Components(urbanCommunity);
+        UrbanCommunity[] parts = components.split();
+        solveParts(components, parts, algorithm);
+        components.lift(parts);
+        return parts.length;
+    }
+
+    /**
+     * Split the urban community into regions of the same size with few roads
+     * between them and run the algorithm on each one at the same time, on the
+     * common fork-join pool. Each region covers its own cities, then the
+     * charging points of the regions are placed on the urban community and
+     * repaired: the uncovered cities get a charging point and the charging
+     * points along the roads between regions are removed when they can be.
+     *
+     * <p>
+     * The algorithm must only modify the urban community it receives, and its
+     * limits, like the time limits, apply to each region.
+     *
+     * @param urbanCommunity The urban community to work with.
+     * @param nbRegions      The number of regions, at least one, around the
+     *                       number of processors.
+     * @param algorithm      The algorithm to run on each region.
+     * @return The number of roads between two regions.
+     */
+    public static int partitionAlgorithm(UrbanCommunity urbanCommunity, int nbRegions,
+            Consumer<UrbanCommunity> algorithm) {
+        Regions regions = new Regions(urbanCommunity, nbRegions);
+        UrbanCommunity[] parts = regions.split();
+        solveParts(regions, parts, algorithm);
+        regions.lift(parts);
+        regions.repair();
+        return regions.getCutRoads();
+    }
+
+    /**
+     * Run the algorithm on the parts of a partition at the same time, on the
+     * common fork-join pool. A part where a city is the neighbor of all the
+     * other ones gets a single charging point without running the algorithm.
+     *
+     * @param partition The partition.
+     * @param parts     The urban communities of the parts.
+     * @param algorithm The algorithm to run on each part.
+     */
+    private static void solveParts(Partition partition, UrbanCommunity[] parts,
+            Consumer<UrbanCommunity> algorithm) {
+        // start with the largest parts so the threads finish together
+        Integer[] order = new Integer[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(partition.getSize(b), partition.getSize(a)));
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i : order) {
+            UrbanCommunity part = parts[i];
+            if (!coverWithOneCity(part)) {
+                tasks.add(() -> {
+                    algorithm.accept(part);
+                    return null;
+                });
             }
         }
+        for (Future<Void> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (InterruptedException | ExecutionException err) {
+                throw new IllegalStateException("A part could not be solved", err);
+            }
+        }
+    }
+
+    /**
+     * Place a single charging point when it covers the urban community, or
+     * none when every city is covered from outside.
+     *
+     * @param urbanCommunity The urban community.
+     * @return True if the charging points were placed.
+     */
+    private static boolean coverWithOneCity(UrbanCommunity urbanCommunity) {
+        int nbCities = urbanCommunity.getCities().length;
+        int center = -1;
+        boolean coveredOutside = true;
+        for (int i = 0; i < nbCities; i++) {
+            coveredOutside &= urbanCommunity.isCoveredOutside(i);
+            if (center == -1 && urbanCommunity.getDegree(i) == nbCities - 1)
+                center = i;
+        }
+        if (!coveredOutside && center == -1)
+            return false;
+
+        for (int i = 0; i < nbCities; i++)
+            urbanCommunity.setChargingPoint(i, !coveredOutside && i == center);
+        return true;
     }
 }
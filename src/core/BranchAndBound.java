@@ -0,0 +1,586 @@
+package core;
+
+import graph.BitsetGraph;
+import graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * An exact solver for the minimum number of charging points, that is the
+ * minimum dominating set of the graph of the roads.
+ *
+ * <p>
+ * The closed neighborhood of each city is stored in a bitset, so the search
+ * works on sets of cities a word at a time. Each node of the search:
+ * <ul>
+ * <li>applies the reduction rules: a city without candidate to cover it
+ * prunes the node, a city with a single candidate forces it, a candidate
+ * covering a subset of what a neighbor covers is excluded, and a city whose
+ * candidates include the candidates of an uncovered neighbor no longer needs
+ * to be covered;</li>
+ * <li>computes a lower bound, the largest of a packing bound (cities whose
+ * candidates are pairwise disjoint need one charging point each) and of the
+ * number of uncovered cities divided by the best coverage gain;</li>
+ * <li>branches on the uncovered city with the fewest candidates, choosing
+ * each candidate in turn and excluding it from the next branches.</li>
+ * </ul>
+ * The search starts with a greedy solution as upper bound, and stops when its
+ * node or time budget is exhausted.
+ *
+ * @see Algorithm#exactAlgorithm(UrbanCommunity, long, long)
+ */
+class BranchAndBound {
+
+    /**
+     * The number of cities.
+     */
+    private final int order;
+
+    /**
+     * The number of words of a set of cities.
+     */
+    private final int words;
+
+    /**
+     * The roads between the cities.
+     */
+    private final Graph graph;
+
+    /**
+     * The closed neighborhood of each city.
+     */
+    private final long[][] closedNeighborhoods;
+
+    /**
+     * The neighbors of each city.
+     */
+    private final int[][] adjacency;
+
+    /**
+     * The maximum number of nodes to explore.
+     */
+    private final long nodeLimit;
+
+    /**
+     * The budget of the search, which receives the best solutions.
+     */
+    private final Budget budget;
+
+    /**
+     * The number of explored nodes.
+     */
+    private long nodes;
+
+    /**
+     * True if the budget was exhausted before the end of the search.
+     */
+    private boolean aborted;
+
+    /**
+     * The cities chosen on the current branch, the first ones are forced by
+     * the caller.
+     */
+    private final int[] chosen;
+
+    /**
+     * The best solution found.
+     */
+    private long[] best;
+
+    /**
+     * The number of cities in the best solution.
+     */
+    private int bestSize;
+
+    /**
+     * A lower bound of the size of the solutions, the search stops when the
+     * best solution reaches it.
+     */
+    private int floor;
+
+    /**
+     * The uncovered cities at each depth of the search, allocated on demand.
+     */
+    private long[][] uncoveredStack = new long[0][];
+
+    /**
+     * The cities excluded from the solution at each depth of the search,
+     * allocated on demand.
+     */
+    private long[][] excludedStack = new long[0][];
+
+    /**
+     * The number of candidates of each uncovered city, computed by the
+     * reductions of the current node.
+     */
+    private final int[] candidates;
+
+    /**
+     * A set used by the packing bound.
+     */
+    private final long[] blocked;
+
+    /**
+     * Create a new solver for the graph given in parameter.
+     *
+     * @param graph           The roads between the cities.
+     * @param nodeLimit The maximum number of nodes to explore.
+     * @param budget    The budget of the search, which receives the best
+     *                  solutions.
+     */
+    BranchAndBound(Graph graph, long nodeLimit, Budget budget) {
+        this.graph = graph;
+        this.nodeLimit = nodeLimit;
+        this.budget = budget;
+        order = graph.order();
+        words = BitsetGraph.words(order);
+        closedNeighborhoods = new long[order][words];
+        adjacency = new int[order][];
+        for (int v = 0; v < order; v++) {
+            adjacency[v] = graph.neighbors(v);
+            long[] neighborhood = closedNeighborhoods[v];
+            neighborhood[v >>> 6] |= 1L << v;
+            graph.forEachNeighbor(v, w -> neighborhood[w >>> 6] |= 1L << w);
+        }
+        chosen = new int[order + 1];
+        candidates = new int[order];
+        blocked = new long[words];
+    }
+
+    /**
+     * Search a minimum set of cities covering the uncovered cities given in
+     * parameter. The search stops as soon as a solution reaches the lower bound
+     * given in parameter. The branches are also pruned by the best solution of
+     * the budget, which may come from another solver.
+     *
+     * @param uncovered  The cities to cover, packed in bits.
+     * @param lowerBound A lower bound of the size of the solutions.
+     * @return True if the best solution, of this search or of the budget, is
+     *         proven optimal.
+     */
+    boolean solve(long[] uncovered, int lowerBound) {
+        best = greedy(uncovered);
+        bestSize = cardinality(best);
+        budget.offer(best, bestSize);
+        floor = lowerBound;
+        if (bestSize <= floor)
+            return true;
+        level(0);
+        System.arraycopy(uncovered, 0, uncoveredStack[0], 0, words);
+        Arrays.fill(excludedStack[0], 0);
+        search(0, 0);
+        return !aborted || incumbent() <= floor;
+    }
+
+    /**
+     * Get the size of the best solution known, found by this search or given to
+     * the budget by another solver.
+     *
+     * @return The size of the best solution.
+     */
+    private int incumbent() {
+        return Math.min(bestSize, budget.getBestScore());
+    }
+
+    /**
+     * Get the best solution found by the last search.
+     *
+     * @return The set of the chosen cities, packed in bits.
+     */
+    long[] getBest() {
+        return best;
+    }
+
+    /**
+     * Get the number of nodes explored by the last search.
+     *
+     * @return The number of nodes.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Make sure the sets of the depth given in parameter are allocated.
+     *
+     * @param depth The depth in the search.
+     */
+    private void level(int depth) {
+        if (depth >= uncoveredStack.length) {
+            int length = Math.max(depth + 1, uncoveredStack.length * 2);
+            uncoveredStack = Arrays.copyOf(uncoveredStack, length);
+            excludedStack = Arrays.copyOf(excludedStack, length);
+        }
+        if (uncoveredStack[depth] == null) {
+            uncoveredStack[depth] = new long[words];
+            excludedStack[depth] = new long[words];
+        }
+    }
+
+    /**
+     * Explore a node of the search.
+     *
+     * @param depth The depth of the node, its sets are in the stacks.
+     * @param size  The number of cities chosen on the branch.
+     */
+    private void search(int depth, int size) {
+        if (incumbent() <= floor)
+            return;
+        if (++nodes > nodeLimit || budget.isExhausted())
+            aborted = true;
+        if (aborted)
+            return;
+
+        long[] uncovered = uncoveredStack[depth];
+        long[] excluded = excludedStack[depth];
+
+        // reduction rules
+        int branchCity = -1;
+        boolean reduced = true;
+        while (reduced) {
+            reduced = false;
+            branchCity = -1;
+            int fewest = Integer.MAX_VALUE;
+            // the candidates only depend on the excluded cities, so the
+            // forced cities are all chosen in one pass
+            for (int k = 0; k < words; k++) {
+                long word = uncovered[k];
+                while (word != 0) {
+                    int u = (k << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if ((uncovered[k] & (1L << u)) == 0)
+                        continue;
+                    int count = countCandidates(u, excluded);
+                    candidates[u] = count;
+                    if (count == 0)
+                        return;
+                    if (count == 1) {
+                        int c = firstCandidate(u, excluded);
+                        chosen[size++] = c;
+                        andNot(uncovered, closedNeighborhoods[c]);
+                        if (size >= incumbent())
+                            return;
+                        reduced = true;
+                    } else if (count < fewest) {
+                        fewest = count;
+                        branchCity = u;
+                    }
+                }
+            }
+            if (!reduced) {
+                reduced = excludeDominatedCandidates(uncovered, excluded);
+                reduced |= removeImpliedCities(uncovered, excluded);
+            }
+        }
+
+        if (branchCity == -1) {
+            // every city is covered
+            if (size < incumbent())
+                record(size);
+            return;
+        }
+
+        if (size + lowerBound(uncovered, excluded) >= incumbent())
+            return;
+
+        // branch on the candidates of the city, best gain first
+        long[] branch = closedNeighborhoods[branchCity];
+        int[] branches = new int[candidates[branchCity]];
+        int[] gains = new int[branches.length];
+        int n = 0;
+        for (int k = 0; k < words; k++) {
+            long word = branch[k] & ~excluded[k];
+            while (word != 0) {
+                int c = (k << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int gain = countAnd(closedNeighborhoods[c], uncovered);
+                int i = n++;
+                while (i > 0 && gains[i - 1] < gain) {
+                    gains[i] = gains[i - 1];
+                    branches[i] = branches[i - 1];
+                    i--;
+                }
+                gains[i] = gain;
+                branches[i] = c;
+            }
+        }
+
+        level(depth + 1);
+        long[] nextUncovered = uncoveredStack[depth + 1];
+        long[] nextExcluded = excludedStack[depth + 1];
+        for (int c : branches) {
+            for (int k = 0; k < words; k++) {
+                nextUncovered[k] = uncovered[k] & ~closedNeighborhoods[c][k];
+                nextExcluded[k] = excluded[k];
+            }
+            chosen[size] = c;
+            search(depth + 1, size + 1);
+            if (aborted || size + 1 >= incumbent())
+                return;
+            // the next branches do not choose this city
+            excluded[c >>> 6] |= 1L << c;
+        }
+    }
+
+    /**
+     * Exclude the candidates covering a subset of the uncovered cities covered
+     * by a neighbor: choosing the neighbor instead is never worse.
+     *
+     * @param uncovered The uncovered cities.
+     * @param excluded  The cities excluded from the solution, updated.
+     * @return True if a city was excluded.
+     */
+    private boolean excludeDominatedCandidates(long[] uncovered, long[] excluded) {
+        boolean res = false;
+        for (int c = 0; c < order; c++) {
+            if ((excluded[c >>> 6] & (1L << c)) != 0 || countAnd(closedNeighborhoods[c], uncovered) == 0)
+                continue;
+            for (int d : adjacency[c]) {
+                if ((excluded[d >>> 6] & (1L << d)) != 0)
+                    continue;
+                // N[c] & U must be in N[d], if both are equal only the first is excluded
+                if (coversSubset(c, d, uncovered) && (c < d || !coversSubset(d, c, uncovered))) {
+                    excluded[c >>> 6] |= 1L << c;
+                    res = true;
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Remove from the uncovered cities those whose candidates include the
+     * candidates of an uncovered neighbor: covering the neighbor covers them.
+     *
+     * @param uncovered The uncovered cities, updated.
+     * @param excluded  The cities excluded from the solution.
+     * @return True if a city was removed.
+     */
+    private boolean removeImpliedCities(long[] uncovered, long[] excluded) {
+        boolean res = false;
+        for (int u = 0; u < order; u++) {
+            if ((uncovered[u >>> 6] & (1L << u)) == 0)
+                continue;
+            for (int v : adjacency[u]) {
+                if ((uncovered[v >>> 6] & (1L << v)) == 0)
+                    continue;
+                // candidates of u must be candidates of v, if both are equal only the last is removed
+                if (candidatesSubset(u, v, excluded) && (u < v || !candidatesSubset(v, u, excluded))) {
+                    uncovered[v >>> 6] &= ~(1L << v);
+                    res = true;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Check if the uncovered cities covered by c are covered by d.
+     *
+     * @param c         The first city.
+     * @param d         The second city.
+     * @param uncovered The uncovered cities.
+     * @return True if {@code N[c] & U} is a subset of {@code N[d]}.
+     */
+    private boolean coversSubset(int c, int d, long[] uncovered) {
+        long[] neighborhoodC = closedNeighborhoods[c];
+        long[] neighborhoodD = closedNeighborhoods[d];
+        for (int k = 0; k < words; k++)
+            if ((neighborhoodC[k] & uncovered[k] & ~neighborhoodD[k]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Check if the candidates to cover u are candidates to cover v.
+     *
+     * @param u        The first city.
+     * @param v        The second city.
+     * @param excluded The cities excluded from the solution.
+     * @return True if {@code N[u] - X} is a subset of {@code N[v]}.
+     */
+    private boolean candidatesSubset(int u, int v, long[] excluded) {
+        long[] neighborhoodU = closedNeighborhoods[u];
+        long[] neighborhoodV = closedNeighborhoods[v];
+        for (int k = 0; k < words; k++)
+            if ((neighborhoodU[k] & ~excluded[k] & ~neighborhoodV[k]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Compute a lower bound of the number of cities needed to cover the
+     * uncovered cities, the candidates counts must be up to date.
+     *
+     * @param uncovered The uncovered cities.
+     * @param excluded  The cities excluded from the solution.
+     * @return The lower bound.
+     */
+    private int lowerBound(long[] uncovered, long[] excluded) {
+        // packing bound, the cities with the fewest candidates first
+        Arrays.fill(blocked, 0);
+        int packing = 0;
+        for (int limit = 2; limit / 2 <= order; limit *= 2) {
+            for (int k = 0; k < words; k++) {
+                long word = uncovered[k];
+                while (word != 0) {
+                    int u = (k << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int count = candidates[u];
+                    if (count > limit || count <= limit / 2)
+                        continue;
+                    boolean free = true;
+                    long[] neighborhood = closedNeighborhoods[u];
+                    for (int j = 0; j < words && free; j++)
+                        free = (neighborhood[j] & ~excluded[j] & blocked[j]) == 0;
+                    if (free) {
+                        packing++;
+                        for (int j = 0; j < words; j++)
+                            blocked[j] |= neighborhood[j] & ~excluded[j];
+                    }
+                }
+            }
+        }
+
+        // counting bound, each city covers at most the best gain
+        int uncoveredCount = cardinality(uncovered);
+        int bestGain = 1;
+        for (int c = 0; c < order; c++)
+            if ((excluded[c >>> 6] & (1L << c)) == 0)
+                bestGain = Math.max(bestGain, countAnd(closedNeighborhoods[c], uncovered));
+        int counting = (uncoveredCount + bestGain - 1) / bestGain;
+
+        return Math.max(packing, counting);
+    }
+
+    /**
+     * Save the current branch as the best solution.
+     *
+     * @param size The number of chosen cities.
+     */
+    private void record(int size) {
+        Arrays.fill(best, 0);
+        for (int i = 0; i < size; i++)
+            best[chosen[i] >>> 6] |= 1L << chosen[i];
+        bestSize = size;
+        budget.offer(best, bestSize);
+    }
+
+    /**
+     * Build a solution by choosing the city covering the most uncovered cities
+     * until every city is covered.
+     *
+     * @param uncovered The cities to cover.
+     * @return The chosen cities, packed in bits.
+     */
+    private long[] greedy(long[] uncovered) {
+        long[] res = new long[words];
+        boolean[] covered = new boolean[order];
+        int[] gains = new int[order];
+        int remaining = 0;
+        for (int v = 0; v < order; v++) {
+            covered[v] = (uncovered[v >>> 6] & (1L << v)) == 0;
+            if (!covered[v])
+                remaining++;
+        }
+        for (int v = 0; v < order; v++)
+            gains[v] = countAnd(closedNeighborhoods[v], uncovered);
+
+        while (remaining > 0) {
+            int c = 0;
+            for (int v = 1; v < order; v++)
+                if (gains[v] > gains[c])
+                    c = v;
+            res[c >>> 6] |= 1L << c;
+            long[] neighborhood = closedNeighborhoods[c];
+            for (int k = 0; k < words; k++) {
+                long word = neighborhood[k];
+                while (word != 0) {
+                    int u = (k << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (!covered[u]) {
+                        covered[u] = true;
+                        remaining--;
+                        // u no longer counts in the gain of its neighborhood
+                        gains[u]--;
+                        graph.forEachNeighbor(u, w -> gains[w]--);
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Count the candidates to cover the city, its closed neighborhood without
+     * the excluded cities.
+     *
+     * @param u        The city to cover.
+     * @param excluded The cities excluded from the solution.
+     * @return The number of candidates.
+     */
+    private int countCandidates(int u, long[] excluded) {
+        long[] neighborhood = closedNeighborhoods[u];
+        int res = 0;
+        for (int k = 0; k < words; k++)
+            res += Long.bitCount(neighborhood[k] & ~excluded[k]);
+        return res;
+    }
+
+    /**
+     * Get the first candidate to cover the city.
+     *
+     * @param u        The city to cover.
+     * @param excluded The cities excluded from the solution.
+     * @return The first candidate, -1 if there is none.
+     */
+    private int firstCandidate(int u, long[] excluded) {
+        long[] neighborhood = closedNeighborhoods[u];
+        for (int k = 0; k < words; k++) {
+            long word = neighborhood[k] & ~excluded[k];
+            if (word != 0)
+                return (k << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the cities of the second set from the first one.
+     *
+     * @param set     The set to update.
+     * @param removed The cities to remove.
+     */
+    private static void andNot(long[] set, long[] removed) {
+        for (int k = 0; k < set.length; k++)
+            set[k] &= ~removed[k];
+    }
+
+    /**
+     * Count the cities in both sets.
+     *
+     * @param set1 The first set.
+     * @param set2 The second set.
+     * @return The size of the intersection.
+     */
+    private static int countAnd(long[] set1, long[] set2) {
+        int res = 0;
+        for (int k = 0; k < set1.length; k++)
+            res += Long.bitCount(set1[k] & set2[k]);
+        return res;
+    }
+
+    /**
+     * Count the cities in the set.
+     *
+     * @param set The set.
+     * @return The number of cities.
+     */
+    static int cardinality(long[] set) {
+        int res = 0;
+        for (long word : set)
+            res += Long.bitCount(word);
+        return res;
+    }
+}
@@ -0,0 +1,185 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of cities with small integer keys.
+ *
+ * <p>
+ * The cities are stored in one doubly linked list per key, so inserting,
+ * removing or changing the key of a city takes a constant time. Polling the
+ * city with the largest or the smallest key skips the empty lists, which is
+ * amortized to a constant time when the keys only move slowly, like the
+ * degrees or the coverage gains.
+ */
+class BucketQueue {
+
+    /**
+     * The first city of the list of each key, -1 if the list is empty.
+     */
+    private final int[] first;
+
+    /**
+     * The next city in the list of each city, -1 at the end.
+     */
+    private final int[] next;
+
+    /**
+     * The previous city in the list of each city, -1 at the start.
+     */
+    private final int[] previous;
+
+    /**
+     * The key of each city, -1 if the city is not in the queue.
+     */
+    private final int[] keys;
+
+    /**
+     * A key greater than or equal to the largest key in the queue.
+     */
+    private int top;
+
+    /**
+     * A key less than or equal to the smallest key in the queue.
+     */
+    private int bottom;
+
+    /**
+     * The number of cities in the queue.
+     */
+    private int size;
+
+    /**
+     * Create a new empty queue.
+     *
+     * @param nbCities The number of cities, numbered from 0.
+     * @param maxKey   The largest key of a city.
+     */
+    BucketQueue(int nbCities, int maxKey) {
+        first = new int[maxKey + 1];
+        next = new int[nbCities];
+        previous = new int[nbCities];
+        keys = new int[nbCities];
+        Arrays.fill(first, -1);
+        Arrays.fill(keys, -1);
+        top = 0;
+        bottom = maxKey;
+    }
+
+    /**
+     * Check if the queue is empty.
+     *
+     * @return True if there is no city in the queue.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check if the city is in the queue.
+     *
+     * @param city The city.
+     * @return True if the city is in the queue.
+     */
+    boolean contains(int city) {
+        return keys[city] != -1;
+    }
+
+    /**
+     * Get the key of the city.
+     *
+     * @param city The city.
+     * @return The key of the city, -1 if it is not in the queue.
+     */
+    int getKey(int city) {
+        return keys[city];
+    }
+
+    /**
+     * Insert the city with the key given in parameter.
+     *
+     * @param city The city, it must not be in the queue.
+     * @param key  The key of the city.
+     */
+    void insert(int city, int key) {
+        keys[city] = key;
+        previous[city] = -1;
+        next[city] = first[key];
+        if (first[key] != -1)
+            previous[first[key]] = city;
+        first[key] = city;
+        top = Math.max(top, key);
+        bottom = Math.min(bottom, key);
+        size++;
+    }
+
+    /**
+     * Remove the city from the queue.
+     *
+     * @param city The city, it must be in the queue.
+     */
+    void remove(int city) {
+        if (previous[city] != -1)
+            next[previous[city]] = next[city];
+        else
+            first[keys[city]] = next[city];
+        if (next[city] != -1)
+            previous[next[city]] = previous[city];
+        keys[city] = -1;
+        size--;
+    }
+
+    /**
+     * Change the key of the city.
+     *
+     * @param city The city, it must be in the queue.
+     * @param key  The new key.
+     */
+    void update(int city, int key) {
+        remove(city);
+        insert(city, key);
+    }
+
+    /**
+     * Get the largest key in the queue.
+     *
+     * @return The largest key, -1 if the queue is empty.
+     */
+    int maxKey() {
+        if (size == 0)
+            return -1;
+        while (first[top] == -1)
+            top--;
+        return top;
+    }
+
+    /**
+     * Remove the city with the largest key from the queue.
+     *
+     * @return The city, -1 if the queue is empty.
+     */
+    int pollMax() {
+        if (size == 0)
+            return -1;
+        while (first[top] == -1)
+            top--;
+        int city = first[top];
+        remove(city);
+        return city;
+    }
+
+    /**
+     * Remove the city with the smallest key from the queue.
+     *
+     * @return The city, -1 if the queue is empty.
+     */
+    int pollMin() {
+        if (size == 0)
+            return -1;
+        while (first[bottom] == -1)
+            bottom++;
+        int city = first[bottom];
+        remove(city);
+        return city;
+    }
+}
@@ -0,0 +1,172 @@
+package core;
+
+/**
+ * The budget of a solver: a deadline, a cancellation requested by another
+ * thread, and the best valid charging points found so far.
+ *
+ * <p>
+ * The solvers check the budget regularly and return soon after it is
+ * exhausted. Each time they find better valid charging points, they give them
+ * to the budget, so the best charging points so far can be read at any moment,
+ * even while the solver is still running. A budget belongs to one urban
+ * community and to the solvers working on it or on its copies.
+ *
+ * @see Solver
+ */
+public class Budget {
+
+    /**
+     * The time after which the budget is exhausted, in the System.nanoTime()
+     * scale.
+     */
+    private final long deadline;
+
+    /**
+     * True if the solvers must stop.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * True if a solver proved that the best charging points so far are
+     * optimal, the other solvers must then stop.
+     */
+    private volatile boolean optimal;
+
+    /**
+     * The best valid charging points so far packed in bits, null if there is
+     * none.
+     */
+    private long[] best;
+
+    /**
+     * The number of charging points of best.
+     */
+    private volatile int bestScore = Integer.MAX_VALUE;
+
+    /**
+     * Create a new budget ending after the time limit given in parameter.
+     *
+     * @param timeLimitMillis The time limit in milliseconds, Long.MAX_VALUE for
+     *                        no limit.
+     */
+    public Budget(long timeLimitMillis) {
+        long now = System.nanoTime();
+        long timeLimit = Math.min(timeLimitMillis, Long.MAX_VALUE / 1_000_000) * 1_000_000;
+        deadline = now + timeLimit < now ? Long.MAX_VALUE : now + timeLimit;
+    }
+
+    /**
+     * Ask the solvers using this budget to stop, from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if the solvers were asked to stop.
+     *
+     * @return True if the budget was cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if the best charging points so far were proven optimal by a solver.
+     *
+     * @return True if the best charging points are optimal.
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Record that the best charging points so far are optimal, so the solvers
+     * using this budget stop.
+     */
+    void proveOptimal() {
+        optimal = true;
+    }
+
+    /**
+     * Check if the budget is cancelled, past its deadline, or if the best
+     * charging points so far are optimal.
+     *
+     * @return True if the solvers must stop.
+     */
+    public boolean isExhausted() {
+        return cancelled || optimal || System.nanoTime() > deadline;
+    }
+
+    /**
+     * Get the time left before the deadline.
+     *
+     * @return The time left in milliseconds, 0 if the budget is exhausted.
+     */
+    public long getRemainingMillis() {
+        if (cancelled || optimal)
+            return 0;
+        return Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+    }
+
+    /**
+     * Get the number of charging points of the best valid charging points so
+     * far.
+     *
+     * @return The number of charging points, Integer.MAX_VALUE if there is
+     *         none yet.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Place the best valid charging points so far on the urban community of the
+     * budget.
+     *
+     * @param urbanCommunity The urban community of the budget.
+     * @return False if there are no valid charging points yet.
+     */
+    public boolean applyBest(UrbanCommunity urbanCommunity) {
+        long[] chargingPoints;
+        synchronized (this) {
+            if (best == null)
+                return false;
+            chargingPoints = best.clone();
+        }
+        urbanCommunity.setChargingPoints(chargingPoints);
+        return true;
+    }
+
+    /**
+     * Keep the charging points of the urban community if they are valid and
+     * better than the best ones so far.
+     *
+     * @param urbanCommunity The urban community of the budget.
+     * @return True if the charging points were kept.
+     */
+    boolean offer(UrbanCommunity urbanCommunity) {
+        return urbanCommunity.isValid()
+                && offer(urbanCommunity.getChargingPoints(), urbanCommunity.urbanCommunityScore());
+    }
+
+    /**
+     * Keep the valid charging points given in parameter if they are better than
+     * the best ones so far.
+     *
+     * @param chargingPoints The valid charging points packed in bits, they are
+     *                       copied.
+     * @param score          The number of charging points.
+     * @return True if the charging points were kept.
+     */
+    synchronized boolean offer(long[] chargingPoints, int score) {
+        if (score >= bestScore)
+            return false;
+        if (best == null)
+            best = chargingPoints.clone();
+        else
+            System.arraycopy(chargingPoints, 0, best, 0, best.length);
+        bestScore = score;
+        return true;
+    }
+}
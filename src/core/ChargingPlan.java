@@ -0,0 +1,360 @@
+package core;
+
+import graph.BitsetGraph;
+import graph.Graph;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents the charging points placed on the cities of a graph.
+ *
+ * <p>
+ * For each city, the plan counts the charging points in its closed
+ * neighborhood (the city and its neighbors), so the coverage of a city, the
+ * number of uncovered cities and the number of charging points are known at
+ * any time. Adding or removing a charging point updates these counters in a
+ * time proportional to the degree of the city.
+ *
+ * <p>
+ * The roads must only be added with {@link #addRoad(int, int)} while the
+ * plan is used.
+ *
+ * @see UrbanCommunity
+ */
+class ChargingPlan {
+
+    /**
+     * The roads between the cities.
+     */
+    private final Graph graph;
+
+    /**
+     * The cities with a charging point, the city i is in the set if the bit
+     * {@code i % 64} of the word {@code i / 64} is set.
+     */
+    private final long[] chargingPoints;
+
+    /**
+     * The cities covered by a charging point outside the graph, packed in bits
+     * like chargingPoints. They count as one more charging point in their
+     * coverage.
+     */
+    private final long[] coveredOutside;
+
+    /**
+     * The number of charging points in the closed neighborhood of each city.
+     */
+    private final int[] coverage;
+
+    /**
+     * The number of cities whose coverage is zero.
+     */
+    private int uncovered;
+
+    /**
+     * The number of cities whose coverage is at least two.
+     */
+    private int coveredTwice;
+
+    /**
+     * The uncovered cities in no particular order, only the first uncovered
+     * values are used.
+     */
+    private final int[] uncoveredCities;
+
+    /**
+     * The position of each uncovered city in uncoveredCities.
+     */
+    private final int[] uncoveredPositions;
+
+    /**
+     * The number of charging points.
+     */
+    private int score;
+
+    /**
+     * Tests if a city is only covered by one charging point. It is kept in a
+     * field so the loops over the neighbors do not allocate.
+     */
+    private final IntPredicate isCoveredOnce;
+
+    /**
+     * Counts one more charging point around a city, kept in a field like
+     * isCoveredOnce.
+     */
+    private final IntConsumer coverAction;
+
+    /**
+     * Counts one less charging point around a city, kept in a field like
+     * isCoveredOnce.
+     */
+    private final IntConsumer uncoverAction;
+
+    /**
+     * Create a new plan without any charging point.
+     *
+     * @param graph The roads between the cities.
+     */
+    ChargingPlan(Graph graph) {
+        this.graph = graph;
+        chargingPoints = new long[BitsetGraph.words(graph.order())];
+        coveredOutside = new long[BitsetGraph.words(graph.order())];
+        coverage = new int[graph.order()];
+        uncovered = graph.order();
+        uncoveredCities = new int[graph.order()];
+        uncoveredPositions = new int[graph.order()];
+        for (int i = 0; i < graph.order(); i++) {
+            uncoveredCities[i] = i;
+            uncoveredPositions[i] = i;
+        }
+        isCoveredOnce = city -> coverage[city] == 1;
+        coverAction = this::cover;
+        uncoverAction = this::uncover;
+    }
+
+    /**
+     * Create a copy of the plan given in parameter, sharing its graph.
+     *
+     * <p>
+     * Only the charging points and the counters are copied, so the copy is cheap
+     * and can be modified by another thread.
+     *
+     * @param plan The plan to copy.
+     */
+    ChargingPlan(ChargingPlan plan) {
+        graph = plan.graph;
+        chargingPoints = plan.chargingPoints.clone();
+        coveredOutside = plan.coveredOutside.clone();
+        coverage = plan.coverage.clone();
+        uncovered = plan.uncovered;
+        coveredTwice = plan.coveredTwice;
+        uncoveredCities = plan.uncoveredCities.clone();
+        uncoveredPositions = plan.uncoveredPositions.clone();
+        score = plan.score;
+        isCoveredOnce = city -> coverage[city] == 1;
+        coverAction = this::cover;
+        uncoverAction = this::uncover;
+    }
+
+    /**
+     * Get the roads between the cities of this plan.
+     *
+     * @return The graph of the roads.
+     */
+    Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Get the cities with a charging point, packed in bits.
+     *
+     * @return The set of the cities with a charging point, it must not be
+     *         modified.
+     */
+    long[] getChargingPoints() {
+        return chargingPoints;
+    }
+
+    /**
+     * Check if the city has a charging point.
+     *
+     * @param city The index of the city.
+     * @return True if the city has a charging point.
+     */
+    boolean hasChargingPoint(int city) {
+        return (chargingPoints[city >>> 6] & (1L << city)) != 0;
+    }
+
+    /**
+     * Check if the city is covered by a charging point outside the graph.
+     *
+     * @param city The index of the city.
+     * @return True if the city is covered from outside.
+     */
+    boolean isCoveredOutside(int city) {
+        return (coveredOutside[city >>> 6] & (1L << city)) != 0;
+    }
+
+    /**
+     * Cover the city by a charging point outside the graph, for example when
+     * the graph is a part of a larger one. The city then never needs a charging
+     * point in its closed neighborhood.
+     *
+     * @param city The index of the city.
+     */
+    void coverOutside(int city) {
+        if (isCoveredOutside(city))
+            return;
+        coveredOutside[city >>> 6] |= 1L << city;
+        cover(city);
+    }
+
+    /**
+     * Get the number of charging points in the closed neighborhood of the city.
+     *
+     * @param city The index of the city.
+     * @return The number of charging points in the city and its neighbors,
+     *         plus one if it is covered from outside.
+     */
+    int getCoverage(int city) {
+        return coverage[city];
+    }
+
+    /**
+     * Check if the city has a charging point or a neighbor possessing one.
+     *
+     * @param city The index of the city.
+     * @return True if the city is covered.
+     */
+    boolean isCovered(int city) {
+        return coverage[city] > 0;
+    }
+
+    /**
+     * Check if the city has a neighbor possessing a charging point, a charging
+     * point outside the graph counts as a neighbor.
+     *
+     * @param city The index of the city.
+     * @return True if a neighbor of the city has a charging point.
+     */
+    boolean hasNeighborWithChargingPoint(int city) {
+        return coverage[city] > (hasChargingPoint(city) ? 1 : 0);
+    }
+
+    /**
+     * Check if the charging point of the city can be removed, that is if the
+     * city has a neighbor possessing a charging point and if no neighbor
+     * depends only on it.
+     *
+     * @param city The index of the city.
+     * @return True if the city has a charging point which can be removed.
+     */
+    boolean canRemove(int city) {
+        return hasChargingPoint(city) && coverage[city] > 1 && !graph.anyNeighbor(city, isCoveredOnce);
+    }
+
+    /**
+     * Get the number of cities without charging point nor neighbor possessing
+     * one.
+     *
+     * @return The number of uncovered cities.
+     */
+    int getUncovered() {
+        return uncovered;
+    }
+
+    /**
+     * Get the number of cities with at least two charging points in their
+     * closed neighborhood, which would stay covered if one was removed.
+     *
+     * @return The number of cities covered twice.
+     */
+    int getCoveredTwice() {
+        return coveredTwice;
+    }
+
+    /**
+     * Get an uncovered city.
+     *
+     * @param i The position of the city among the uncovered cities, between 0
+     *          and {@code getUncovered() - 1}.
+     * @return The index of the city.
+     */
+    int getUncoveredCity(int i) {
+        return uncoveredCities[i];
+    }
+
+    /**
+     * Get the number of charging points.
+     *
+     * @return The number of cities with a charging point.
+     */
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * Check if every city is covered.
+     *
+     * @return True if there is no uncovered city.
+     */
+    boolean isValid() {
+        return uncovered == 0;
+    }
+
+    /**
+     * Add a charging point to the city, nothing happens if it already has one.
+     *
+     * @param city The index of the city.
+     */
+    void add(int city) {
+        if (hasChargingPoint(city))
+            return;
+        chargingPoints[city >>> 6] |= 1L << city;
+        score++;
+        cover(city);
+        graph.forEachNeighbor(city, coverAction);
+    }
+
+    /**
+     * Remove the charging point of the city without any check, nothing happens
+     * if it has none.
+     *
+     * @param city The index of the city.
+     */
+    void remove(int city) {
+        if (!hasChargingPoint(city))
+            return;
+        chargingPoints[city >>> 6] &= ~(1L << city);
+        score--;
+        uncover(city);
+        graph.forEachNeighbor(city, uncoverAction);
+    }
+
+    /**
+     * Add a road between two cities and update their coverage.
+     *
+     * @param city1 The index of the first city.
+     * @param city2 The index of the second city.
+     */
+    void addRoad(int city1, int city2) {
+        if (graph.adjacent(city1, city2))
+            return;
+        graph.addEdge(city1, city2);
+        if (hasChargingPoint(city1))
+            cover(city2);
+        if (hasChargingPoint(city2))
+            cover(city1);
+    }
+
+    /**
+     * Count one more charging point around the city.
+     *
+     * @param city The index of the city.
+     */
+    private void cover(int city) {
+        if (coverage[city]++ == 0) {
+            // move the last uncovered city to the place of this one
+            int last = uncoveredCities[--uncovered];
+            uncoveredCities[uncoveredPositions[city]] = last;
+            uncoveredPositions[last] = uncoveredPositions[city];
+        } else if (coverage[city] == 2) {
+            coveredTwice++;
+        }
+    }
+
+    /**
+     * Count one less charging point around the city.
+     *
+     * @param city The index of the city.
+     */
+    private void uncover(int city) {
+        if (--coverage[city] == 0) {
+            uncoveredCities[uncovered] = city;
+            uncoveredPositions[city] = uncovered++;
+        } else if (coverage[city] == 1) {
+            coveredTwice--;
+        }
+    }
+}
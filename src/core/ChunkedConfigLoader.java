@@ -0,0 +1,411 @@
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import exceptions.InvalidConfigFileException;
+import graph.CsrGraph;
+import graph.EdgeList;
+
+/**
+ * A loader of the configuration files reading the bytes of the file mapped in
+ * memory, without regex nor exception to find the sections.
+ *
+ * <p>
+ * The file is split in chunks starting at the beginning of a line. A first
+ * parallel pass sorts the lines of each chunk in runs of lines of the same
+ * kind (city, road, charging point or other). The runs are then read in order
+ * to find the sections like {@link ConfigParser#loadConfigFile(File)}: the
+ * cities, then the roads, then the charging points, until a line is not of
+ * the kind of its section or of a following one. A second parallel pass
+ * parses the names of the cities, then the roads directly into the arrays of
+ * their ends, the cities being found with their bytes in the
+ * {@link CityIndex}.
+ *
+ * <p>
+ * The names of the cities are ASCII words, so the loader gives up when a line
+ * with another character is read before the end of the sections, or when the
+ * file is too large to be mapped at once. The regex parser is used then.
+ */
+class ChunkedConfigLoader {
+
+    /**
+     * The kinds of lines, the sections are in this order.
+     */
+    private static final int CITY = 0;
+    private static final int ROAD = 1;
+    private static final int CHARGING_POINT = 2;
+    private static final int OTHER = 3;
+
+    /**
+     * The kind of the lines with a non ASCII character, which are left to the
+     * regex parser.
+     */
+    private static final int NOT_ASCII = 4;
+
+    private static final byte[] CITY_PREFIX = "ville(".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ROAD_PREFIX = "route(".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHARGING_POINT_PREFIX = "recharge(".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The smallest size of a chunk in bytes, so small files are read in one
+     * chunk.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The number of chunks per thread of the common pool, so the threads
+     * finish together.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The bytes of the file.
+     */
+    private final MappedByteBuffer bytes;
+
+    /**
+     * The runs of lines of each section: the start of the first line and the
+     * number of lines, two values per run.
+     */
+    private final RunList[] sections = { new RunList(), new RunList(), new RunList() };
+
+    private ChunkedConfigLoader(MappedByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Load the urban community stored in the file.
+     *
+     * @param file The file.
+     * @return A new urban community, null if the file must be read by the
+     *         regex parser.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If a road or a charging point is in
+     *                                    an unknown city.
+     */
+    static UrbanCommunity load(File file) throws IOException, InvalidConfigFileException {
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                return null;
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ChunkedConfigLoader loader = new ChunkedConfigLoader(bytes);
+        if (!loader.findSections())
+            return null;
+        return loader.build();
+    }
+
+    /**
+     * Sort the lines of the chunks in runs, then keep the runs of the sections.
+     *
+     * @return False if a line with a non ASCII character is in the sections.
+     * @throws InvalidConfigFileException Never, declared for the tasks.
+     */
+    private boolean findSections() throws InvalidConfigFileException {
+        int size = bytes.limit();
+        int nbChunks = Math.max(1, Math.min(size / MIN_CHUNK_SIZE,
+                ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_THREAD));
+
+        List<Callable<RunList>> tasks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= nbChunks; i++) {
+            int to = i == nbChunks ? size : lineStart((int) ((long) size * i / nbChunks));
+            int chunkFrom = from;
+            int chunkTo = Math.max(from, to);
+            tasks.add(() -> runs(chunkFrom, chunkTo));
+            from = chunkTo;
+        }
+
+        int section = CITY;
+        for (RunList runs : invokeAll(tasks)) {
+            for (int i = 0; i < runs.size; i += 3) {
+                int kind = runs.values[i];
+                if (kind == NOT_ASCII)
+                    return false;
+                if (kind == OTHER || kind < section)
+                    return true;
+                section = kind;
+                sections[kind].add(runs.values[i + 1], runs.values[i + 2]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse the sections and build the urban community.
+     *
+     * @return The urban community.
+     * @throws InvalidConfigFileException If a road or a charging point is in
+     *                                    an unknown city.
+     */
+    private UrbanCommunity build() throws InvalidConfigFileException {
+        City[] cities = new City[sections[CITY].countLines()];
+        List<Callable<Void>> cityTasks = new ArrayList<>();
+        forEachRun(sections[CITY], (start, count, offset) -> cityTasks.add(() -> {
+            int pos = start;
+            for (int i = 0; i < count; i++) {
+                int nameStart = pos + CITY_PREFIX.length;
+                int nameEnd = wordEnd(nameStart);
+                byte[] name = new byte[nameEnd - nameStart];
+                bytes.get(nameStart, name);
+                cities[offset + i] = new City(new String(name, StandardCharsets.US_ASCII));
+                pos = nextLine(nameEnd);
+            }
+            return null;
+        }));
+        invokeAll(cityTasks);
+        CityIndex cityIndex = new CityIndex(cities);
+
+        int nbRoads = sections[ROAD].countLines();
+        int[] sources = new int[nbRoads];
+        int[] targets = new int[nbRoads];
+        List<Callable<Void>> roadTasks = new ArrayList<>();
+        forEachRun(sections[ROAD], (start, count, offset) -> roadTasks.add(() -> {
+            int pos = start;
+            for (int i = 0; i < count; i++) {
+                int sourceStart = pos + ROAD_PREFIX.length;
+                int sourceEnd = wordEnd(sourceStart);
+                int targetEnd = wordEnd(sourceEnd + 1);
+                int source = cityIndex.indexOf(bytes, sourceStart, sourceEnd);
+                int target = cityIndex.indexOf(bytes, sourceEnd + 1, targetEnd);
+                if (source == -1 || target == -1 || source == target)
+                    throw new InvalidConfigFileException("Try to add road between unknown cities!");
+                sources[offset + i] = source;
+                targets[offset + i] = target;
+                pos = nextLine(targetEnd);
+            }
+            return null;
+        }));
+        invokeAll(roadTasks);
+
+        UrbanCommunity urbanCommunity = new UrbanCommunity(cities,
+                new CsrGraph(cities.length, new EdgeList(sources, targets)), cityIndex);
+
+        RunList chargingPoints = sections[CHARGING_POINT];
+        for (int run = 0; run < chargingPoints.size; run += 2) {
+            int pos = chargingPoints.values[run];
+            for (int i = 0; i < chargingPoints.values[run + 1]; i++) {
+                int nameStart = pos + CHARGING_POINT_PREFIX.length;
+                int nameEnd = wordEnd(nameStart);
+                int city = cityIndex.indexOf(bytes, nameStart, nameEnd);
+                if (city == -1 || urbanCommunity.hasChargingPoint(city))
+                    throw new InvalidConfigFileException("Try to add a charging point in an unknown cities!");
+                urbanCommunity.addChargingPoint(city);
+                pos = nextLine(nameEnd);
+            }
+        }
+        return urbanCommunity;
+    }
+
+    /**
+     * Sort the lines of a chunk in runs of lines of the same kind.
+     *
+     * @param from The start of the first line of the chunk.
+     * @param to   The end of the chunk, after the end of its last line.
+     * @return The runs: the kind, the start of the first line and the number
+     *         of lines, three values per run.
+     */
+    private RunList runs(int from, int to) {
+        RunList runs = new RunList();
+        int pos = from;
+        while (pos < to) {
+            int end = pos;
+            boolean ascii = true;
+            byte b;
+            while (end < to && (b = bytes.get(end)) != '\n' && b != '\r') {
+                ascii &= b >= 0;
+                end++;
+            }
+            int kind = ascii ? kind(pos, end) : NOT_ASCII;
+
+            int size = runs.size;
+            if (size > 0 && runs.values[size - 3] == kind)
+                runs.values[size - 1]++;
+            else
+                runs.add(kind, pos, 1);
+            pos = nextLine(end);
+        }
+        return runs;
+    }
+
+    /**
+     * Find the kind of a line of ASCII characters, like the patterns of
+     * {@link ConfigParser}.
+     *
+     * @param from The start of the line.
+     * @param to   The end of the line, before its line terminator.
+     * @return The kind of the line.
+     */
+    private int kind(int from, int to) {
+        int pos;
+        if (startsWith(from, to, CITY_PREFIX)) {
+            pos = word(from + CITY_PREFIX.length, to);
+            return pos != -1 && closes(pos, to) ? CITY : OTHER;
+        }
+        if (startsWith(from, to, ROAD_PREFIX)) {
+            pos = word(from + ROAD_PREFIX.length, to);
+            if (pos == -1 || pos == to || bytes.get(pos) != ',')
+                return OTHER;
+            pos = word(pos + 1, to);
+            return pos != -1 && closes(pos, to) ? ROAD : OTHER;
+        }
+        if (startsWith(from, to, CHARGING_POINT_PREFIX)) {
+            pos = word(from + CHARGING_POINT_PREFIX.length, to);
+            return pos != -1 && closes(pos, to) ? CHARGING_POINT : OTHER;
+        }
+        return OTHER;
+    }
+
+    private boolean startsWith(int from, int to, byte[] prefix) {
+        if (to - from < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+            if (bytes.get(from + i) != prefix[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Check if the line ends with a closing parenthesis followed by any
+     * character, like ").$" in the patterns.
+     */
+    private boolean closes(int pos, int to) {
+        return to - pos == 2 && bytes.get(pos) == ')';
+    }
+
+    /**
+     * Skip a word of at least one character, like "\w+" in the patterns.
+     *
+     * @return The end of the word, -1 if there is no word.
+     */
+    private int word(int from, int to) {
+        int end = Math.min(wordEnd(from), to);
+        return end == from ? -1 : end;
+    }
+
+    /**
+     * Find the end of the word starting at the position given in parameter.
+     */
+    private int wordEnd(int pos) {
+        int limit = bytes.limit();
+        while (pos < limit && isWordByte(bytes.get(pos)))
+            pos++;
+        return pos;
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    /**
+     * Find the start of the line after the position given in parameter, like
+     * {@link java.io.BufferedReader#readLine()} a line ends with '\n', '\r' or
+     * "\r\n".
+     *
+     * @param pos A position in a line or on its line terminator.
+     * @return The start of the next line, or the size of the file.
+     */
+    private int nextLine(int pos) {
+        int limit = bytes.limit();
+        while (pos < limit && bytes.get(pos) != '\n' && bytes.get(pos) != '\r')
+            pos++;
+        if (pos < limit && bytes.get(pos++) == '\r' && pos < limit && bytes.get(pos) == '\n')
+            pos++;
+        return pos;
+    }
+
+    /**
+     * Find the start of the first line starting at or after the position given
+     * in parameter.
+     */
+    private int lineStart(int pos) {
+        if (pos == 0)
+            return 0;
+        return nextLine(pos - 1);
+    }
+
+    /**
+     * Call the action on each run of a section, with the number of lines of
+     * the runs before it.
+     */
+    private static void forEachRun(RunList runs, RunAction action) {
+        int offset = 0;
+        for (int i = 0; i < runs.size; i += 2) {
+            action.accept(runs.values[i], runs.values[i + 1], offset);
+            offset += runs.values[i + 1];
+        }
+    }
+
+    /**
+     * Run the tasks on the common pool and wait for their results.
+     *
+     * @throws InvalidConfigFileException If a task threw it.
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks) throws InvalidConfigFileException {
+        List<T> res = new ArrayList<>();
+        for (Future<T> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                res.add(result.get());
+            } catch (ExecutionException err) {
+                // the pool wraps the checked exceptions of the tasks
+                for (Throwable cause = err; cause != null; cause = cause.getCause())
+                    if (cause instanceof InvalidConfigFileException)
+                        throw (InvalidConfigFileException) cause;
+                throw new IllegalStateException("A chunk could not be read", err);
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The loading was interrupted", err);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * An action on a run of lines.
+     */
+    @FunctionalInterface
+    private interface RunAction {
+        void accept(int start, int count, int offset);
+    }
+
+    /**
+     * A growable list of int values, several per run.
+     */
+    private static class RunList {
+
+        private int[] values = new int[6];
+
+        private int size;
+
+        private void add(int... run) {
+            if (size + run.length > values.length)
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + run.length));
+            System.arraycopy(run, 0, values, size, run.length);
+            size += run.length;
+        }
+
+        /**
+         * Count the lines of the runs of a section.
+         */
+        private int countLines() {
+            int res = 0;
+            for (int i = 1; i < size; i += 2)
+                res += values[i];
+            return res;
+        }
+    }
+}
@@ -14,10 +14,16 @@ package core;
 public class City {
 
     /**
-     * The name of the city.
+     * The name of the city, null until it is first needed when the city only
+     * has a number.
      */
     private String name;
 
+    /**
+     * The number of the city when its name is this number written in decimal.
+     */
+    private final int number;
+
     /**
      * Whether it has a charging point or not.
      */
@@ -33,6 +39,32 @@ public class City {
      */
     public City(String name) {
         this.name = name;
+        number = -1;
+    }
+
+    /**
+     * Creates a new City object named by the number given in parameter. The
+     * name is only created when it is first needed, so the large numbered
+     * graphs are loaded without a String per city.
+     *
+     * @param number
+     *        The number of the city, positive or zero
+     */
+    City(int number) {
+        this.number = number;
+    }
+
+    /**
+     * Creates a new City object with the name of the city given in parameter,
+     * without its charging point. A name which is not created yet is not
+     * created by the copy.
+     *
+     * @param city
+     *        The city to copy
+     */
+    City(City city) {
+        name = city.name;
+        number = city.number;
     }
 
     /**
@@ -41,6 +73,9 @@ public class City {
      * @return The name of the city
      */
     public String getName() {
+        // several threads may create the same name, any of them can be kept
+        if (name == null)
+            name = Integer.toString(number);
         return name;
     }
 
@@ -0,0 +1,173 @@
+package core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An index of cities by name, ignoring the case like
+ * {@link String#equalsIgnoreCase(String)}.
+ *
+ * <p>
+ * The index is an open addressing hash table of the positions of the cities
+ * in their array. When several cities have the same name, the first one is
+ * found. The table is built on the first search, so the names of the cities
+ * are not needed before.
+ */
+class CityIndex {
+
+    /**
+     * The indexed cities.
+     */
+    private final City[] cities;
+
+    /**
+     * The hash table, each slot stores the index of a city plus one, zero
+     * marks an empty slot. Null until the first search.
+     */
+    private volatile int[] table;
+
+    /**
+     * Create a new index of the cities given in parameter.
+     *
+     * @param cities The cities to index.
+     */
+    CityIndex(City[] cities) {
+        this.cities = cities;
+    }
+
+    /**
+     * Get the hash table, built on the first call.
+     *
+     * @return The hash table.
+     */
+    private int[] table() {
+        int[] res = table;
+        if (res == null) {
+            synchronized (this) {
+                res = table;
+                if (res == null)
+                    table = res = build(cities);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Build the hash table of the cities.
+     *
+     * @param cities The cities to index.
+     * @return The hash table.
+     */
+    private static int[] build(City[] cities) {
+        // keep the table at most half full
+        int[] table = new int[Integer.highestOneBit(Math.max(cities.length, 1) * 2) * 2];
+
+        for (int i = 0; i < cities.length; i++) {
+            String name = cities[i].getName();
+            int slot = hash(name) & (table.length - 1);
+            boolean duplicated = false;
+            while (table[slot] != 0 && !duplicated) {
+                duplicated = cities[table[slot] - 1].getName().equalsIgnoreCase(name);
+                slot = (slot + 1) & (table.length - 1);
+            }
+            if (!duplicated)
+                table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    /**
+     * Fold the case of a character like {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param c The character.
+     * @return The folded character.
+     */
+    private static char fold(char c) {
+        if (c < 128)
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Compute the hash of a name, ignoring the case.
+     *
+     * @param name The name.
+     * @return The hash of the name.
+     */
+    private static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++)
+            h = 31 * h + fold(name.charAt(i));
+        return mix(h);
+    }
+
+    /**
+     * Mix the bits of a hash, so the names differing by their last characters,
+     * whose hashes are close, are not in neighboring slots.
+     *
+     * @param h The hash.
+     * @return The mixed hash.
+     */
+    private static int mix(int h) {
+        // the finalizer of MurmurHash3, each bit changes half of the bits
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the index of the city whose name is given in parameter.
+     *
+     * @param city The name of the city.
+     * @return The index of the city, -1 if the city does not exist.
+     */
+    int indexOf(String city) {
+        int[] table = table();
+        int slot = hash(city) & (table.length - 1);
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (cities[index].getName().equalsIgnoreCase(city))
+                return index;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Get the index of the city whose name is stored in ASCII in a range of
+     * bytes, without creating a String.
+     *
+     * @param bytes The bytes, only read with absolute gets so several threads
+     *              can share them.
+     * @param from  The start of the name.
+     * @param to    The end of the name, exclusive.
+     * @return The index of the city, -1 if the city does not exist.
+     */
+    int indexOf(ByteBuffer bytes, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++)
+            h = 31 * h + fold((char) bytes.get(i));
+        int[] table = table();
+        int slot = mix(h) & (table.length - 1);
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (matches(cities[index].getName(), bytes, from, to))
+                return index;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Check if a name is equal to a range of ASCII bytes, ignoring the case.
+     */
+    private static boolean matches(String name, ByteBuffer bytes, int from, int to) {
+        if (name.length() != to - from)
+            return false;
+        for (int i = 0; i < name.length(); i++)
+            if (fold(name.charAt(i)) != fold((char) bytes.get(from + i)))
+                return false;
+        return true;
+    }
+}
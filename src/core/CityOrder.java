@@ -0,0 +1,144 @@
+package core;
+
+import graph.Graph;
+
+import java.util.SplittableRandom;
+
+/**
+ * The orders in which {@link Algorithm#algoOpti(UrbanCommunity, CityOrder)}
+ * tries to remove the charging points.
+ *
+ * <p>
+ * The static orders are computed in a time proportional to the number of
+ * cities and roads, with a counting sort on the degrees or a bucket queue.
+ * The cities with the same key are in the order of their indexes, or in a
+ * random order when a random generator is given.
+ */
+public enum CityOrder {
+
+    /**
+     * The cities with the fewest neighbors first, they cover the fewest
+     * cities.
+     */
+    ASCENDING_DEGREE,
+
+    /**
+     * The cities with the most neighbors first.
+     */
+    DESCENDING_DEGREE,
+
+    /**
+     * The degeneracy order: the city with the fewest neighbors is removed from
+     * the graph, then the city with the fewest neighbors left, and so on, so
+     * the outskirts come before the dense cores of the network.
+     */
+    DEGENERACY,
+
+    /**
+     * A dynamic order: the charging point whose closed neighborhood is the most
+     * covered is removed first, and the order is updated after each removal.
+     * The cities with the same coverage are first taken by ascending degree,
+     * then a city whose coverage changed is taken before the cities which
+     * already had this coverage.
+     */
+    REDUNDANCY;
+
+    /**
+     * Sort the cities in the static part of this order.
+     *
+     * @param graph  The roads between the cities.
+     * @param random The random generator breaking the ties, null to break them
+     *               by index.
+     * @return The cities in this order.
+     */
+    int[] sort(Graph graph, SplittableRandom random) {
+        int nbCities = graph.order();
+        int[] cities = new int[nbCities];
+        for (int i = 0; i < nbCities; i++)
+            cities[i] = i;
+        if (random != null) {
+            for (int i = nbCities - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int city = cities[i];
+                cities[i] = cities[j];
+                cities[j] = city;
+            }
+        }
+
+        switch (this) {
+            case DESCENDING_DEGREE:
+                return byDegree(graph, cities, true);
+            case DEGENERACY:
+                return byDegeneracy(graph, cities);
+            default:
+                return byDegree(graph, cities, false);
+        }
+    }
+
+    /**
+     * Sort the cities by degree with a stable counting sort.
+     *
+     * @param graph      The roads between the cities.
+     * @param cities     The cities, in the order of the ties.
+     * @param descending True to sort by descending degree.
+     * @return The sorted cities.
+     */
+    private static int[] byDegree(Graph graph, int[] cities, boolean descending) {
+        int maxDegree = 0;
+        for (int city : cities)
+            maxDegree = Math.max(maxDegree, graph.degree(city));
+
+        int[] starts = new int[maxDegree + 2];
+        for (int city : cities)
+            starts[key(graph, city, maxDegree, descending) + 1]++;
+        for (int key = 0; key <= maxDegree; key++)
+            starts[key + 1] += starts[key];
+
+        int[] res = new int[cities.length];
+        for (int city : cities)
+            res[starts[key(graph, city, maxDegree, descending)]++] = city;
+        return res;
+    }
+
+    /**
+     * Get the key of a city in the counting sort.
+     *
+     * @param graph      The roads between the cities.
+     * @param city       The city.
+     * @param maxDegree  The largest degree.
+     * @param descending True to sort by descending degree.
+     * @return The key, between 0 and maxDegree.
+     */
+    private static int key(Graph graph, int city, int maxDegree, boolean descending) {
+        return descending ? maxDegree - graph.degree(city) : graph.degree(city);
+    }
+
+    /**
+     * Sort the cities in the degeneracy order.
+     *
+     * @param graph  The roads between the cities.
+     * @param cities The cities, in the order of the ties.
+     * @return The sorted cities.
+     */
+    private static int[] byDegeneracy(Graph graph, int[] cities) {
+        int maxDegree = 0;
+        for (int city : cities)
+            maxDegree = Math.max(maxDegree, graph.degree(city));
+
+        // the queue lists are last in, first out, so the ties are inserted backwards
+        BucketQueue queue = new BucketQueue(cities.length, maxDegree);
+        for (int i = cities.length - 1; i >= 0; i--)
+            queue.insert(cities[i], graph.degree(cities[i]));
+
+        int[] res = new int[cities.length];
+        for (int i = 0; i < res.length; i++) {
+            int city = queue.pollMin();
+            res[i] = city;
+            graph.forEachNeighbor(city, neighbor -> {
+                if (queue.contains(neighbor))
+                    queue.update(neighbor, queue.getKey(neighbor) - 1);
+            });
+        }
+        return res;
+    }
+}
@@ -0,0 +1,47 @@
+package core;
+
+import graph.Graph;
+
+/**
+ * The connected components of an urban community, found by a breadth-first
+ * search in a time proportional to the number of cities and roads.
+ *
+ * <p>
+ * No road joins two components, so the charging points of each component can
+ * be placed independently.
+ *
+ * @see Algorithm#componentAlgorithm(UrbanCommunity, java.util.function.Consumer)
+ */
+class Components extends Partition {
+
+    /**
+     * Find the connected components of the urban community given in parameter.
+     *
+     * @param urbanCommunity The urban community to split.
+     */
+    Components(UrbanCommunity urbanCommunity) {
+        super(urbanCommunity);
+        Graph graph = urbanCommunity.getGraph();
+        int nbCities = graph.order();
+        boolean[] visited = new boolean[nbCities];
+
+        // cities is also the queue of the search, the cities between head and tail are waiting
+        int[] tail = { 0 };
+        for (int i = 0; i < nbCities; i++) {
+            if (visited[i])
+                continue;
+            starts[count++] = tail[0];
+            visited[i] = true;
+            cities[tail[0]++] = i;
+            for (int head = starts[count - 1]; head < tail[0]; head++) {
+                graph.forEachNeighbor(cities[head], neighbor -> {
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        cities[tail[0]++] = neighbor;
+                    }
+                });
+            }
+        }
+        starts[count] = nbCities;
+    }
+}
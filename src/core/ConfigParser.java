@@ -3,25 +3,33 @@ package core;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Map.Entry;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import exceptions.InvalidConfigFileException;
+import graph.CsrGraph;
+import graph.EdgeList;
+import graph.Graph;
 
 public class ConfigParser {
     public static final Pattern PATTERN_CITY = Pattern.compile("ville\\((\\w+)\\).$");
     public static final Pattern PATTERN_ROAD = Pattern.compile("^route\\((\\w+),(\\w+)\\).$");
     public static final Pattern PATTERN_CHARGING_POINT = Pattern.compile("^recharge\\((\\w+)\\).$");
 
+    /**
+     * The size of the buffer of the writer of the config files.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
     /**
      * Check if this line match the regex and return the name of the city.
      * 
@@ -66,8 +74,29 @@ public class ConfigParser {
         return matcher.group(1);
     }
 
+    /**
+     * Get the index of the city whose name is given in parameter.
+     *
+     * @param cityIndex The index of the cities.
+     * @param city      The name of the city.
+     * @return The index of the city.
+     * @throws IllegalArgumentException If the city does not exist.
+     */
+    private static int resolveCity(CityIndex cityIndex, String city) {
+        int index = cityIndex.indexOf(city);
+        if (index == -1)
+            throw new IllegalArgumentException("The city " + city + " does not exist");
+        return index;
+    }
+
     /**
      * Load the urban community stored in this file.
+     *
+     * <p>
+     * The file is mapped in memory and its chunks are read in parallel by
+     * {@link ChunkedConfigLoader}. The files it cannot read, with names which
+     * are not ASCII or larger than 2 GB, are read line by line with the
+     * patterns.
      * 
      * @param file
      * @return A new urban community instance.
@@ -75,7 +104,28 @@ public class ConfigParser {
      * @throws InvalidConfigFileException
      */
     public static UrbanCommunity loadConfigFile(File file) throws IOException, InvalidConfigFileException {
+        UrbanCommunity urbanCommunity = ChunkedConfigLoader.load(file);
+        return urbanCommunity != null ? urbanCommunity : parseConfigFile(file);
+    }
+
+    /**
+     * Load the urban community stored in this file, line by line with the
+     * patterns.
+     *
+     * <p>
+     * The roads are collected in an edge list and stored in a CsrGraph once
+     * they are all read.
+     * 
+     * @param file
+     * @return A new urban community instance.
+     * @throws IOException
+     * @throws InvalidConfigFileException
+     */
+    static UrbanCommunity parseConfigFile(File file) throws IOException, InvalidConfigFileException {
         List<City> cities = new ArrayList<>();
+        City[] cityArray = null;
+        CityIndex cityIndex = null;
+        EdgeList roads = new EdgeList();
         FileReader fileReader = new FileReader(file);
         UrbanCommunity urbanCommunity = null;
         int i = 0;
@@ -89,7 +139,8 @@ public class ConfigParser {
                     try {
                         cities.add(new City(parseCity(line)));
                     } catch (InvalidConfigFileException err) {
-                        urbanCommunity = new UrbanCommunity(cities.toArray(new City[cities.size()]));
+                        cityArray = cities.toArray(new City[cities.size()]);
+                        cityIndex = new CityIndex(cityArray);
                         i++;
                     }
                 }
@@ -98,10 +149,16 @@ public class ConfigParser {
                     // Load roads
                     try {
                         String[] road = parseRoad(line);
-                        urbanCommunity.addRoad(road[0], road[1]);
+                        int city1 = resolveCity(cityIndex, road[0]);
+                        int city2 = resolveCity(cityIndex, road[1]);
+                        if (city1 == city2)
+                            throw new IllegalArgumentException("You cannot add a road between the same city");
+                        roads.add(city1, city2);
                     } catch (IllegalArgumentException err) {
                         throw new InvalidConfigFileException("Try to add road between unknown cities!");
                     } catch (InvalidConfigFileException err) {
+                        urbanCommunity = new UrbanCommunity(cityArray, new CsrGraph(cityArray.length, roads),
+                                cityIndex);
                         i++;
                     }
                 }
@@ -120,52 +177,192 @@ public class ConfigParser {
             }
         }
 
-        // If the file only contains cities, urban community could not be created
-        if (urbanCommunity == null)
-            urbanCommunity = new UrbanCommunity(cities.toArray(new City[cities.size()]));
+        // If the file only contains cities and roads, urban community could not be created
+        if (urbanCommunity == null) {
+            if (cityArray == null) {
+                cityArray = cities.toArray(new City[cities.size()]);
+                cityIndex = new CityIndex(cityArray);
+            }
+            urbanCommunity = new UrbanCommunity(cityArray, new CsrGraph(cityArray.length, roads), cityIndex);
+        }
+
+        return urbanCommunity;
+    }
+
+    /**
+     * Load the urban community stored in a binary snapshot, see
+     * {@link Snapshot} for its format.
+     *
+     * @param file The snapshot file.
+     * @return A new urban community instance.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a snapshot or is
+     *                                    corrupted.
+     */
+    public static UrbanCommunity loadSnapshot(File file) throws IOException, InvalidConfigFileException {
+        return Snapshot.load(file);
+    }
+
+    /**
+     * Save the urban community in a binary snapshot, which is loaded much
+     * faster than a config file.
+     *
+     * @param file           The snapshot file.
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void saveSnapshot(File file, UrbanCommunity urbanCommunity) throws IOException {
+        Snapshot.save(file, urbanCommunity);
+    }
+
+    /**
+     * Load the urban community stored in a config file, using a snapshot as a
+     * cache: the snapshot is loaded if it is newer than the config file,
+     * otherwise the config file is loaded and the snapshot is written again.
+     *
+     * @param file     The config file.
+     * @param snapshot The snapshot file used as a cache.
+     * @return A new urban community instance.
+     * @throws IOException                If the config file cannot be read.
+     * @throws InvalidConfigFileException If the config file is invalid.
+     */
+    public static UrbanCommunity loadConfigFile(File file, File snapshot)
+            throws IOException, InvalidConfigFileException {
+        if (snapshot.isFile() && snapshot.lastModified() >= file.lastModified()) {
+            try {
+                return loadSnapshot(snapshot);
+            } catch (IOException | InvalidConfigFileException err) {
+                // an unreadable cache is written again
+            }
+        }
 
+        UrbanCommunity urbanCommunity = loadConfigFile(file);
+        try {
+            saveSnapshot(snapshot, urbanCommunity);
+        } catch (IOException err) {
+            // the cache is optional
+        }
         return urbanCommunity;
     }
 
+    /**
+     * Load a graph file of the PACE challenge, whose vertices are numbered
+     * from 1, as an urban community without charging points. See
+     * {@link PaceFormat} for the format.
+     *
+     * @param file The graph file (.gr).
+     * @return A new urban community instance, the city i is named by the
+     *         number i + 1.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a valid graph file.
+     */
+    public static UrbanCommunity loadPaceGraph(File file) throws IOException, InvalidConfigFileException {
+        return PaceFormat.loadGraph(file);
+    }
+
+    /**
+     * Save the roads of the urban community in a graph file of the PACE
+     * challenge, the city i being the vertex i + 1.
+     *
+     * @param file           The graph file (.gr).
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void savePaceGraph(File file, UrbanCommunity urbanCommunity) throws IOException {
+        PaceFormat.saveGraph(file, urbanCommunity);
+    }
+
+    /**
+     * Load a solution file of the PACE challenge as the charging points of the
+     * urban community, which replace its current charging points.
+     *
+     * @param file           The solution file (.ds).
+     * @param urbanCommunity The urban community loaded from the graph file.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a valid solution
+     *                                    file.
+     */
+    public static void loadPaceSolution(File file, UrbanCommunity urbanCommunity)
+            throws IOException, InvalidConfigFileException {
+        PaceFormat.loadSolution(file, urbanCommunity);
+    }
+
+    /**
+     * Save the charging points of the urban community in a solution file of
+     * the PACE challenge.
+     *
+     * @param file           The solution file (.ds).
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void savePaceSolution(File file, UrbanCommunity urbanCommunity) throws IOException {
+        PaceFormat.saveSolution(file, urbanCommunity);
+    }
+
     /**
      * Save the urban community in the file.
+     *
+     * <p>
+     * The lines are written to the file as they are produced: the cities and
+     * the charging points in the order of the cities, and each road once,
+     * from the city with the lower index, in the order of its ends. Saving the
+     * same urban community always writes the same bytes.
      * 
      * @param file
      * @param urbanCommunity
      * @throws IOException
      */
     public static void saveConfigFile(File file, UrbanCommunity urbanCommunity) throws IOException {
-        // Il faut avoir la liste des villes
-        // Il faut la liste des voisins d'une ville
-        // Il faut savoir si une ville à un point de recharge
-        Set<Entry<String, String>> roads = new HashSet<>();
-        Set<String> chargingPoints = new HashSet<>();
-        StringBuffer sb = new StringBuffer();
-
-        for (City city : urbanCommunity.getCities()) {
-            sb.append(String.format("ville(%s).\n", city.getName()));
-            for (City neighbor : urbanCommunity.getNeighbors(city.getName())) {
-                Entry<String, String> road;
-                if (city.getName().compareTo(neighbor.getName()) < 0) {
-                    road = Map.entry(city.getName(), neighbor.getName());
-                } else {
-                    road = Map.entry(neighbor.getName(), city.getName());
+        City[] cities = urbanCommunity.getCities();
+        Graph graph = urbanCommunity.getGraph();
+
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            for (City city : cities)
+                writeLine(writer, "ville(", city.getName(), null);
+
+            // the visitor is created once, the rows of the graph are not copied
+            int[] from = new int[1];
+            IntConsumer writeRoad = neighbor -> {
+                if (neighbor > from[0]) {
+                    try {
+                        writeLine(writer, "route(", cities[from[0]].getName(), cities[neighbor].getName());
+                    } catch (IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
                 }
-                roads.add(road);
+            };
+            for (int city = 0; city < cities.length; city++) {
+                from[0] = city;
+                graph.forEachNeighbor(city, writeRoad);
             }
-            if (city.hasChargingPoint())
-                chargingPoints.add(city.getName());
-        }
 
-        for (Entry<String, String> road : roads) {
-            sb.append(String.format("route(%s,%s).\n", road.getKey(), road.getValue()));
+            for (City city : cities) {
+                if (city.hasChargingPoint())
+                    writeLine(writer, "recharge(", city.getName(), null);
+            }
+        } catch (UncheckedIOException err) {
+            throw err.getCause();
         }
+    }
 
-        for (String chargingPoint : chargingPoints)
-            sb.append(String.format("recharge(%s).\n", chargingPoint));
-
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file))) {
-            bufferedWriter.write(sb.toString());
+    /**
+     * Write a line of a config file.
+     *
+     * @param writer The writer of the file.
+     * @param prefix The start of the line, up to the opening parenthesis.
+     * @param first  The first name.
+     * @param second The second name, null if there is only one.
+     * @throws IOException
+     */
+    private static void writeLine(BufferedWriter writer, String prefix, String first, String second)
+            throws IOException {
+        writer.write(prefix);
+        writer.write(first);
+        if (second != null) {
+            writer.write(',');
+            writer.write(second);
         }
+        writer.write(").\n");
     }
 }
@@ -0,0 +1,301 @@
+package core;
+
+import graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * The kernel of an urban community: a smaller urban community left when the
+ * charging points forced by the reduction rules are placed and the cities
+ * which no longer matter are removed.
+ *
+ * <p>
+ * The rules are applied until none applies, they keep at least one optimal
+ * placement:
+ * <ul>
+ * <li>an uncovered city without neighbor gets a charging point;</li>
+ * <li>the only neighbor of an uncovered city gets a charging point, because
+ * it covers everything the city would cover;</li>
+ * <li>a covered city without neighbor or with only one neighbor is removed,
+ * for the same reason;</li>
+ * <li>a covered city without uncovered neighbor is removed, since a charging
+ * point in it would be useless;</li>
+ * <li>when every city able to cover an uncovered city is a neighbor of
+ * another city, that other city is covered whatever the placement.</li>
+ * </ul>
+ * The cities of the kernel covered by the rules are covered from outside, so
+ * any algorithm can be run on the kernel as on a whole urban community.
+ *
+ * @see Algorithm#kernelAlgorithm(UrbanCommunity, java.util.function.Consumer)
+ */
+class Kernel {
+
+    /**
+     * The largest degree of an uncovered city whose neighborhood is compared
+     * to the ones of its neighbors, so the last rule stays linear.
+     */
+    private static final int MAX_COMPARED_DEGREE = 32;
+
+    /**
+     * The reduced urban community.
+     */
+    private final UrbanCommunity urbanCommunity;
+
+    /**
+     * The roads of the reduced urban community.
+     */
+    private final Graph graph;
+
+    /**
+     * True for the cities still in the kernel.
+     */
+    private final boolean[] alive;
+
+    /**
+     * True for the cities covered by a forced charging point, from outside or
+     * whatever the placement.
+     */
+    private final boolean[] covered;
+
+    /**
+     * True for the cities getting a forced charging point.
+     */
+    private final boolean[] forced;
+
+    /**
+     * The number of neighbors of each city in the kernel.
+     */
+    private final int[] degrees;
+
+    /**
+     * The number of uncovered neighbors of each city in the kernel.
+     */
+    private final int[] uncoveredNeighbors;
+
+    /**
+     * The cities whose rules must be checked again, only the first pending
+     * values are used.
+     */
+    private final int[] pendingCities;
+
+    /**
+     * True for the cities in pendingCities.
+     */
+    private final boolean[] isPending;
+
+    /**
+     * The number of cities in pendingCities.
+     */
+    private int pending;
+
+    /**
+     * The cities of the kernel, the city i of the kernel is the city
+     * kernelCities[i] of the reduced urban community.
+     */
+    private final int[] kernelCities;
+
+    /**
+     * The kernel.
+     */
+    private final UrbanCommunity kernel;
+
+    /**
+     * Reduce the urban community given in parameter, its charging points are
+     * not used nor modified.
+     *
+     * @param urbanCommunity The urban community to reduce.
+     */
+    Kernel(UrbanCommunity urbanCommunity) {
+        this.urbanCommunity = urbanCommunity;
+        graph = urbanCommunity.getGraph();
+        int nbCities = graph.order();
+        alive = new boolean[nbCities];
+        covered = new boolean[nbCities];
+        forced = new boolean[nbCities];
+        degrees = new int[nbCities];
+        uncoveredNeighbors = new int[nbCities];
+        pendingCities = new int[nbCities];
+        isPending = new boolean[nbCities];
+
+        for (int i = 0; i < nbCities; i++) {
+            alive[i] = true;
+            covered[i] = urbanCommunity.isCoveredOutside(i);
+            degrees[i] = graph.degree(i);
+        }
+        for (int i = 0; i < nbCities; i++) {
+            int[] count = { 0 };
+            graph.forEachNeighbor(i, neighbor -> {
+                if (!covered[neighbor])
+                    count[0]++;
+            });
+            uncoveredNeighbors[i] = count[0];
+            pendingCities[pending++] = i;
+            isPending[i] = true;
+        }
+
+        while (pending > 0) {
+            int city = pendingCities[--pending];
+            isPending[city] = false;
+            if (alive[city])
+                reduce(city);
+        }
+
+        int size = 0;
+        for (int i = 0; i < nbCities; i++)
+            if (alive[i])
+                size++;
+        kernelCities = new int[size];
+        size = 0;
+        for (int i = 0; i < nbCities; i++)
+            if (alive[i])
+                kernelCities[size++] = i;
+
+        // reuse pendingCities, filled with -1, as the positions of the cities
+        Arrays.fill(pendingCities, -1);
+        kernel = urbanCommunity.subCommunity(kernelCities, pendingCities);
+        for (int i = 0; i < kernelCities.length; i++)
+            if (covered[kernelCities[i]])
+                kernel.coverOutside(i);
+    }
+
+    /**
+     * Get the kernel, whose charging points can be modified before lifting
+     * them.
+     *
+     * @return The kernel.
+     */
+    UrbanCommunity getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Place the forced charging points and the ones of the kernel on the
+     * reduced urban community, replacing its charging points.
+     */
+    void lift() {
+        for (int i = 0; i < forced.length; i++)
+            urbanCommunity.setChargingPoint(i, forced[i]);
+        for (int i = 0; i < kernelCities.length; i++)
+            if (kernel.hasChargingPoint(i))
+                urbanCommunity.setChargingPoint(kernelCities[i], true);
+    }
+
+    /**
+     * Apply the first rule matching the city.
+     *
+     * @param city The city, still in the kernel.
+     */
+    private void reduce(int city) {
+        if (degrees[city] == 0) {
+            if (!covered[city])
+                force(city);
+            else
+                removeCity(city);
+        } else if (covered[city] && uncoveredNeighbors[city] == 0) {
+            removeCity(city);
+        } else if (degrees[city] == 1) {
+            int neighbor = aliveNeighbor(city);
+            if (!covered[city])
+                force(neighbor);
+            else
+                removeCity(city);
+        } else if (!covered[city] && degrees[city] <= MAX_COMPARED_DEGREE) {
+            coverImpliedNeighbors(city);
+        }
+    }
+
+    /**
+     * Cover the neighbors of the uncovered city which are neighbors of all the
+     * other cities able to cover it.
+     *
+     * @param city The uncovered city.
+     */
+    private void coverImpliedNeighbors(int city) {
+        int[] neighbors = graph.neighbors(city);
+        for (int candidate : neighbors) {
+            if (!alive[candidate] || covered[candidate] || degrees[candidate] < degrees[city])
+                continue;
+            boolean implied = true;
+            for (int i = 0; i < neighbors.length && implied; i++) {
+                int other = neighbors[i];
+                implied = other == candidate || !alive[other] || graph.adjacent(candidate, other);
+            }
+            if (implied)
+                cover(candidate);
+        }
+    }
+
+    /**
+     * Find the only neighbor of the city still in the kernel.
+     *
+     * @param city The city, with one neighbor in the kernel.
+     * @return The neighbor.
+     */
+    private int aliveNeighbor(int city) {
+        for (int neighbor : graph.neighbors(city))
+            if (alive[neighbor])
+                return neighbor;
+        return -1;
+    }
+
+    /**
+     * Give a forced charging point to the city, cover its closed neighborhood
+     * and remove it from the kernel.
+     *
+     * @param city The city, still in the kernel.
+     */
+    private void force(int city) {
+        forced[city] = true;
+        cover(city);
+        graph.forEachNeighbor(city, neighbor -> {
+            if (alive[neighbor])
+                cover(neighbor);
+        });
+        removeCity(city);
+    }
+
+    /**
+     * Mark the city as covered.
+     *
+     * @param city The city, still in the kernel.
+     */
+    private void cover(int city) {
+        if (covered[city])
+            return;
+        covered[city] = true;
+        addPending(city);
+        graph.forEachNeighbor(city, neighbor -> {
+            if (alive[neighbor]) {
+                uncoveredNeighbors[neighbor]--;
+                addPending(neighbor);
+            }
+        });
+    }
+
+    /**
+     * Remove the city from the kernel.
+     *
+     * @param city The city, still in the kernel and covered.
+     */
+    private void removeCity(int city) {
+        alive[city] = false;
+        graph.forEachNeighbor(city, neighbor -> {
+            if (alive[neighbor]) {
+                degrees[neighbor]--;
+                addPending(neighbor);
+            }
+        });
+    }
+
+    /**
+     * Check the rules of the city again later.
+     *
+     * @param city The city.
+     */
+    private void addPending(int city) {
+        if (!isPending[city]) {
+            isPending[city] = true;
+            pendingCities[pending++] = city;
+        }
+    }
+}
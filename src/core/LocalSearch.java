@@ -0,0 +1,353 @@
+package core;
+
+import java.util.SplittableRandom;
+
+/**
+ * A local search over the charging points of an urban community, used by
+ * the simulated annealing and the tabu search.
+ *
+ * <p>
+ * The search may go through invalid plans: the cost of a plan is its number
+ * of charging points plus a penalty for each uncovered city. The moves add a
+ * charging point, remove one, or move one to a neighbor city. Thanks to the
+ * coverage counters of the plan, the variation of the cost of a move is
+ * computed in a time proportional to the degree of the cities, without
+ * applying it.
+ *
+ * @see Algorithm#annealingAlgorithm(UrbanCommunity, long, long, double, double, long)
+ * @see Algorithm#tabuAlgorithm(UrbanCommunity, long, long, int, long)
+ */
+class LocalSearch {
+
+    /**
+     * The cost of an uncovered city, greater than the cost of a charging point
+     * so the best plans are valid.
+     */
+    private static final int UNCOVERED_PENALTY = 2;
+
+    /**
+     * The number of random cities evaluated to remove a charging point in the
+     * tabu search.
+     */
+    private static final int TABU_SAMPLE = 32;
+
+    /**
+     * The charging points, modified by the search.
+     */
+    private final ChargingPlan plan;
+
+    /**
+     * The neighbors of each city.
+     */
+    private final int[][] adjacency;
+
+    /**
+     * The random generator of the search.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The maximum number of iterations.
+     */
+    private final long iterations;
+
+    /**
+     * The budget of the search, which receives the best valid plans.
+     */
+    private final Budget budget;
+
+    /**
+     * True if the best valid plan changed since it was given to the budget.
+     */
+    private boolean improved;
+
+    /**
+     * A lower bound of the number of charging points, the search stops when
+     * the best valid plan reaches it.
+     */
+    private final int lowerBound;
+
+    /**
+     * The best valid charging points found, packed in bits.
+     */
+    private final long[] best;
+
+    /**
+     * The number of charging points of the best valid plan.
+     */
+    private int bestScore;
+
+    /**
+     * Create a new search starting from the plan given in parameter.
+     *
+     * @param plan            The charging points, modified by the search.
+     * @param lowerBound      A lower bound of the number of charging points.
+     * @param iterations      The maximum number of iterations.
+     * @param budget          The budget of the search.
+     * @param seed            The seed of the random generator.
+     */
+    LocalSearch(ChargingPlan plan, int lowerBound, long iterations, Budget budget, long seed) {
+        this.plan = plan;
+        this.lowerBound = lowerBound;
+        this.iterations = iterations;
+        this.budget = budget;
+        random = new SplittableRandom(seed);
+        int nbCities = plan.getGraph().order();
+        adjacency = new int[nbCities][];
+        for (int i = 0; i < nbCities; i++)
+            adjacency[i] = plan.getGraph().neighbors(i);
+        best = plan.getChargingPoints().clone();
+        bestScore = plan.isValid() ? plan.getScore() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the best valid charging points found.
+     *
+     * @return The charging points packed in bits, the starting ones if no valid
+     *         plan was found.
+     */
+    long[] getBest() {
+        return best;
+    }
+
+    /**
+     * Check if the search must stop. Every 1024 iterations, the best valid plan
+     * is given to the budget if it changed, and the budget is checked.
+     *
+     * @param iteration The current iteration.
+     * @return True if the search must stop.
+     */
+    private boolean isOver(long iteration) {
+        if ((iteration & 1023) == 0) {
+            publish();
+            if (budget.isExhausted())
+                return true;
+        }
+        return iteration >= iterations || bestScore <= lowerBound;
+    }
+
+    /**
+     * Give the best valid plan to the budget if it changed since the last
+     * time.
+     */
+    private void publish() {
+        if (improved) {
+            budget.offer(best, bestScore);
+            improved = false;
+        }
+    }
+
+    /**
+     * Save the plan if it is valid and better than the best one.
+     */
+    private void recordIfBetter() {
+        if (plan.isValid() && plan.getScore() < bestScore) {
+            bestScore = plan.getScore();
+            System.arraycopy(plan.getChargingPoints(), 0, best, 0, best.length);
+            improved = true;
+        }
+    }
+
+    /**
+     * Compute the variation of the cost when adding a charging point.
+     *
+     * @param city The city without charging point.
+     * @return The variation of the cost.
+     */
+    private int addDelta(int city) {
+        int newlyCovered = plan.getCoverage(city) == 0 ? 1 : 0;
+        for (int neighbor : adjacency[city])
+            if (plan.getCoverage(neighbor) == 0)
+                newlyCovered++;
+        return 1 - UNCOVERED_PENALTY * newlyCovered;
+    }
+
+    /**
+     * Compute the variation of the cost when removing a charging point.
+     *
+     * @param city The city with a charging point.
+     * @return The variation of the cost.
+     */
+    private int removeDelta(int city) {
+        int newlyUncovered = plan.getCoverage(city) == 1 ? 1 : 0;
+        for (int neighbor : adjacency[city])
+            if (plan.getCoverage(neighbor) == 1)
+                newlyUncovered++;
+        return -1 + UNCOVERED_PENALTY * newlyUncovered;
+    }
+
+    /**
+     * Compute the variation of the cost when moving a charging point to a
+     * neighbor city.
+     *
+     * @param from The city with a charging point.
+     * @param to   The neighbor city without charging point.
+     * @return The variation of the cost.
+     */
+    private int moveDelta(int from, int to) {
+        // the cities covered by both keep their coverage
+        int delta = 0;
+        if (plan.getCoverage(from) == 1 && !isNeighborOrSelf(to, from))
+            delta++;
+        for (int neighbor : adjacency[from])
+            if (plan.getCoverage(neighbor) == 1 && !isNeighborOrSelf(to, neighbor))
+                delta++;
+        if (plan.getCoverage(to) == 0)
+            delta--;
+        for (int neighbor : adjacency[to])
+            if (plan.getCoverage(neighbor) == 0)
+                delta--;
+        return UNCOVERED_PENALTY * delta;
+    }
+
+    /**
+     * Check if the second city is in the closed neighborhood of the first one.
+     *
+     * @param city  The first city.
+     * @param other The second city.
+     * @return True if both cities are the same or neighbors.
+     */
+    private boolean isNeighborOrSelf(int city, int other) {
+        return city == other || plan.getGraph().adjacent(city, other);
+    }
+
+    /**
+     * Run a simulated annealing: at each iteration a random move is applied if
+     * it does not increase the cost, or with a probability decreasing with the
+     * temperature. The temperature decreases geometrically from the start
+     * temperature to the end temperature during the iterations, or during the
+     * time left in the budget if there is no iteration limit.
+     *
+     * @param startTemperature The temperature at the start.
+     * @param endTemperature   The temperature at the end.
+     * @return The best valid charging points found, packed in bits.
+     */
+    long[] anneal(double startTemperature, double endTemperature) {
+        int nbCities = adjacency.length;
+        if (nbCities == 0)
+            return best;
+        long start = System.nanoTime();
+        double duration = Math.max(1, budget.getRemainingMillis()) * 1e6;
+        double logRatio = Math.log(endTemperature / startTemperature);
+        double temperature = startTemperature;
+
+        for (long iteration = 0; !isOver(iteration); iteration++) {
+            if ((iteration & 1023) == 0) {
+                double progress = iterations != Long.MAX_VALUE ? (double) iteration / iterations
+                        : (System.nanoTime() - start) / duration;
+                temperature = startTemperature * Math.exp(logRatio * Math.min(progress, 1));
+            }
+
+            int city = random.nextInt(nbCities);
+            int target = -1;
+            int delta;
+            if (!plan.hasChargingPoint(city)) {
+                delta = addDelta(city);
+            } else if (adjacency[city].length > 0 && random.nextBoolean()) {
+                target = adjacency[city][random.nextInt(adjacency[city].length)];
+                if (plan.hasChargingPoint(target))
+                    continue;
+                delta = moveDelta(city, target);
+            } else {
+                delta = removeDelta(city);
+            }
+
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                apply(city, target);
+                recordIfBetter();
+            }
+        }
+        publish();
+        if (bestScore <= lowerBound)
+            budget.proveOptimal();
+
+        return best;
+    }
+
+    /**
+     * Run a tabu search: when the plan is valid, it is saved and the charging
+     * point whose removal costs the least is removed. While the plan is invalid,
+     * a charging point is added to the best city covering a random uncovered
+     * city and another one is removed, so the search looks for a valid plan
+     * with one charging point less. A changed city cannot be changed again
+     * during the tenure, so the search does not undo its last moves.
+     *
+     * @param tenure The number of iterations during which a changed city cannot
+     *               be changed again.
+     * @return The best valid charging points found, packed in bits.
+     */
+    long[] tabu(int tenure) {
+        int nbCities = adjacency.length;
+        if (nbCities == 0)
+            return best;
+        long[] tabuUntil = new long[nbCities];
+
+        for (long iteration = 0; !isOver(iteration); iteration++) {
+            if (plan.isValid()) {
+                recordIfBetter();
+            } else {
+                // cover a random uncovered city with its best candidate
+                int uncoveredCity = plan.getUncoveredCity(random.nextInt(plan.getUncovered()));
+                int added = -1;
+                int addedDelta = Integer.MAX_VALUE;
+                if (tabuUntil[uncoveredCity] <= iteration) {
+                    added = uncoveredCity;
+                    addedDelta = addDelta(uncoveredCity);
+                }
+                for (int neighbor : adjacency[uncoveredCity]) {
+                    int delta = addDelta(neighbor);
+                    if (tabuUntil[neighbor] <= iteration && delta < addedDelta) {
+                        added = neighbor;
+                        addedDelta = delta;
+                    }
+                }
+                if (added == -1)
+                    continue;
+                plan.add(added);
+                tabuUntil[added] = iteration + tenure;
+            }
+
+            // remove the charging point whose removal costs the least among random cities
+            int removed = -1;
+            int removedDelta = Integer.MAX_VALUE;
+            for (int i = 0; i < TABU_SAMPLE; i++) {
+                int city = random.nextInt(nbCities);
+                if (plan.hasChargingPoint(city) && tabuUntil[city] <= iteration) {
+                    int delta = removeDelta(city);
+                    if (delta < removedDelta) {
+                        removed = city;
+                        removedDelta = delta;
+                    }
+                }
+            }
+            if (removed != -1) {
+                plan.remove(removed);
+                tabuUntil[removed] = iteration + tenure;
+            }
+        }
+        recordIfBetter();
+        publish();
+        if (bestScore <= lowerBound)
+            budget.proveOptimal();
+
+        return best;
+    }
+
+    /**
+     * Apply a move to the plan.
+     *
+     * @param city   The city to change.
+     * @param target The neighbor receiving the charging point of the city, -1
+     *               to add or remove a charging point in the city.
+     */
+    private void apply(int city, int target) {
+        if (target != -1) {
+            plan.remove(city);
+            plan.add(target);
+        } else if (plan.hasChargingPoint(city)) {
+            plan.remove(city);
+        } else {
+            plan.add(city);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package core;
+
+import graph.Graph;
+
+/**
+ * Lower bounds of the number of charging points needed to cover the cities of
+ * a plan which are not covered from outside.
+ *
+ * <p>
+ * Both bounds are computed in a time proportional to the number of roads:
+ * <ul>
+ * <li>the packing bound finds cities whose closed neighborhoods are
+ * disjoint, each one needs its own charging point;</li>
+ * <li>the dual bound gives a weight to each city to cover so the weights
+ * around any city sum to at most one, the sum of the weights is then at most
+ * the number of charging points of any valid plan. It is the dual of the
+ * linear relaxation of the problem, solved approximately by raising the
+ * weights while every sum stays under one.</li>
+ * </ul>
+ *
+ * @see UrbanCommunity#lowerBound()
+ */
+class LowerBounds {
+
+    /**
+     * The number of passes raising the weights of the dual bound.
+     */
+    private static final int DUAL_PASSES = 3;
+
+    /**
+     * The precision of the sums of weights, so rounding errors never make the
+     * bound greater than the optimum.
+     */
+    private static final double EPSILON = 1e-9;
+
+    private LowerBounds() {
+    }
+
+    /**
+     * Compute the best of the lower bounds of the plan.
+     *
+     * @param plan The plan, only its graph and its cities covered from outside
+     *             are used.
+     * @return The lower bound.
+     */
+    static int of(ChargingPlan plan) {
+        return Math.max(packing(plan), dual(plan, DUAL_PASSES));
+    }
+
+    /**
+     * Compute the packing bound: the cities to cover are taken by increasing
+     * degree when their closed neighborhood does not meet the closed
+     * neighborhood of a city already taken.
+     *
+     * @param plan The plan.
+     * @return The number of cities taken.
+     */
+    static int packing(ChargingPlan plan) {
+        Graph graph = plan.getGraph();
+        int nbCities = graph.order();
+        boolean[] taken = new boolean[nbCities];
+        int res = 0;
+        for (int city : CityOrder.ASCENDING_DEGREE.sort(graph, null)) {
+            if (plan.isCoveredOutside(city) || taken[city] || graph.anyNeighbor(city, n -> taken[n]))
+                continue;
+            taken[city] = true;
+            graph.forEachNeighbor(city, n -> taken[n] = true);
+            res++;
+        }
+        return res;
+    }
+
+    /**
+     * Compute the dual bound. The weights start at one divided by the largest
+     * closed neighborhood around each city, then each pass raises the weight of
+     * each city by the smallest room left around it.
+     *
+     * @param plan   The plan.
+     * @param passes The number of passes raising the weights.
+     * @return The sum of the weights rounded up.
+     */
+    static int dual(ChargingPlan plan, int passes) {
+        Graph graph = plan.getGraph();
+        int nbCities = graph.order();
+        double[] weights = new double[nbCities];
+        // the room of a city is one minus the weights of its closed neighborhood
+        double[] rooms = new double[nbCities];
+        int[] order = CityOrder.ASCENDING_DEGREE.sort(graph, null);
+
+        for (int city = 0; city < nbCities; city++) {
+            rooms[city] = 1;
+            if (plan.isCoveredOutside(city))
+                continue;
+            int[] largest = { graph.degree(city) + 1 };
+            graph.forEachNeighbor(city, n -> largest[0] = Math.max(largest[0], graph.degree(n) + 1));
+            weights[city] = 1.0 / largest[0];
+        }
+        for (int city = 0; city < nbCities; city++) {
+            double weight = weights[city];
+            rooms[city] -= weight;
+            graph.forEachNeighbor(city, n -> rooms[n] -= weight);
+        }
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (int city : order) {
+                if (plan.isCoveredOutside(city))
+                    continue;
+                double[] raise = { rooms[city] };
+                graph.forEachNeighbor(city, n -> raise[0] = Math.min(raise[0], rooms[n]));
+                if (raise[0] <= 0)
+                    continue;
+                weights[city] += raise[0];
+                rooms[city] -= raise[0];
+                graph.forEachNeighbor(city, n -> rooms[n] -= raise[0]);
+            }
+        }
+
+        double sum = 0;
+        for (double weight : weights)
+            sum += weight;
+        return (int) Math.ceil(sum - EPSILON * (nbCities + 1));
+    }
+}
@@ -0,0 +1,339 @@
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import exceptions.InvalidConfigFileException;
+import graph.CsrGraph;
+import graph.EdgeList;
+import graph.Graph;
+
+/**
+ * The numeric format of the dominating set instances of the PACE challenge.
+ *
+ * <p>
+ * A graph file (.gr) starts with the line "p ds n m", then each of the m lines
+ * is an edge "u v" between two vertices numbered from 1 to n. A solution file
+ * (.ds) starts with the number of vertices of the dominating set, then each
+ * line is one of them. The lines starting with 'c' are comments.
+ *
+ * <p>
+ * The vertex v is the city v - 1 of the urban community, named by the number
+ * v. The files are mapped in memory and their numbers are read from the bytes,
+ * and the names of the cities are only created if they are needed.
+ *
+ * @see ConfigParser#loadPaceGraph(File)
+ */
+class PaceFormat {
+
+    /**
+     * The size of the buffer of the writer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The largest number of bytes of an int written in decimal.
+     */
+    private static final int MAX_DIGITS = 11;
+
+    /**
+     * The bytes of the file being read, or the bytes waiting to be written.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * The channel of the file being written, null when a file is read.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The city whose edges are written.
+     */
+    private int city;
+
+    /**
+     * Writes the edge to a neighbor with a greater index, kept in a field so
+     * the loops over the neighbors do not allocate.
+     */
+    private final IntConsumer writeEdge;
+
+    private PaceFormat(ByteBuffer bytes, FileChannel channel) {
+        this.bytes = bytes;
+        this.channel = channel;
+        writeEdge = neighbor -> {
+            if (neighbor > city) {
+                try {
+                    writeNumber(city + 1, ' ');
+                    writeNumber(neighbor + 1, '\n');
+                } catch (IOException err) {
+                    // the edges are written from the loops over the neighbors
+                    throw new UncheckedIOException(err);
+                }
+            }
+        };
+    }
+
+    /**
+     * Load the graph file as an urban community without charging points.
+     *
+     * @param file The graph file.
+     * @return A new urban community instance.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a valid graph file.
+     */
+    static UrbanCommunity loadGraph(File file) throws IOException, InvalidConfigFileException {
+        PaceFormat reader = open(file);
+        if (!reader.skipComments() || reader.bytes.get() != 'p' || !reader.skipWord("ds"))
+            throw new InvalidConfigFileException("The graph file must start with 'p ds'!");
+        int nbCities = reader.readNumber();
+        int nbRoads = reader.readNumber();
+        // an edge takes at least four bytes, or three on the last line
+        if (nbRoads > reader.bytes.remaining() / 4 + 1)
+            throw new InvalidConfigFileException("The graph file has less than " + nbRoads + " edges!");
+
+        int[] sources = new int[nbRoads];
+        int[] targets = new int[nbRoads];
+        int size = 0;
+        for (int i = 0; i < nbRoads; i++) {
+            sources[size] = reader.readVertex(nbCities);
+            targets[size] = reader.readVertex(nbCities);
+            // the loops do not change the dominating sets
+            if (sources[size] != targets[size])
+                size++;
+        }
+        if (reader.skipComments())
+            throw new InvalidConfigFileException("The graph file has more than " + nbRoads + " edges!");
+        if (size < nbRoads) {
+            sources = Arrays.copyOf(sources, size);
+            targets = Arrays.copyOf(targets, size);
+        }
+
+        City[] cities = new City[nbCities];
+        for (int i = 0; i < nbCities; i++)
+            cities[i] = new City(i + 1);
+        return new UrbanCommunity(cities, new CsrGraph(nbCities, new EdgeList(sources, targets)));
+    }
+
+    /**
+     * Load the solution file as the charging points of the urban community,
+     * which replace its current charging points.
+     *
+     * @param file           The solution file.
+     * @param urbanCommunity The urban community loaded from the graph file.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a valid solution
+     *                                    file.
+     */
+    static void loadSolution(File file, UrbanCommunity urbanCommunity) throws IOException, InvalidConfigFileException {
+        int nbCities = urbanCommunity.getCities().length;
+        PaceFormat reader = open(file);
+        int size = reader.readNumber();
+        long[] chargingPoints = new long[(nbCities + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            int city = reader.readVertex(nbCities);
+            chargingPoints[city >>> 6] |= 1L << city;
+        }
+        if (reader.skipComments())
+            throw new InvalidConfigFileException("The solution file has more than " + size + " vertices!");
+        urbanCommunity.setChargingPoints(chargingPoints);
+    }
+
+    /**
+     * Save the roads of the urban community in a graph file, each road once
+     * from its end with the lower index.
+     *
+     * @param file           The graph file.
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    static void saveGraph(File file, UrbanCommunity urbanCommunity) throws IOException {
+        Graph graph = urbanCommunity.getGraph();
+        int nbCities = graph.order();
+        long nbRoads = 0;
+        for (int city = 0; city < nbCities; city++) {
+            // the loops are not written, the other roads are in the rows of
+            // their two ends
+            nbRoads += graph.adjacent(city, city) ? graph.degree(city) - 1 : graph.degree(city);
+        }
+        nbRoads /= 2;
+
+        try (FileChannel channel = create(file)) {
+            PaceFormat writer = new PaceFormat(ByteBuffer.allocate(BUFFER_SIZE), channel);
+            writer.writeText("p ds ");
+            writer.writeNumber(nbCities, ' ');
+            writer.writeNumber(nbRoads, '\n');
+            for (int city = 0; city < nbCities; city++) {
+                writer.city = city;
+                graph.forEachNeighbor(city, writer.writeEdge);
+            }
+            writer.flush();
+        } catch (UncheckedIOException err) {
+            throw err.getCause();
+        }
+    }
+
+    /**
+     * Save the charging points of the urban community in a solution file.
+     *
+     * @param file           The solution file.
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    static void saveSolution(File file, UrbanCommunity urbanCommunity) throws IOException {
+        int nbCities = urbanCommunity.getCities().length;
+        try (FileChannel channel = create(file)) {
+            PaceFormat writer = new PaceFormat(ByteBuffer.allocate(BUFFER_SIZE), channel);
+            writer.writeNumber(urbanCommunity.urbanCommunityScore(), '\n');
+            for (int city = 0; city < nbCities; city++) {
+                if (urbanCommunity.hasChargingPoint(city))
+                    writer.writeNumber(city + 1, '\n');
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Map the file in memory to read it.
+     */
+    private static PaceFormat open(File file) throws IOException, InvalidConfigFileException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new InvalidConfigFileException("The file is too large!");
+            return new PaceFormat(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), null);
+        }
+    }
+
+    private static FileChannel create(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Skip the spaces, the line ends and the comment lines.
+     *
+     * @return False if the end of the file is reached.
+     */
+    private boolean skipComments() {
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get(bytes.position());
+            if (b == 'c') {
+                while (bytes.hasRemaining() && bytes.get() != '\n')
+                    continue;
+            } else if (isSpace(b)) {
+                bytes.get();
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skip the spaces then a word.
+     *
+     * @return False if the next word is not the word given in parameter.
+     */
+    private boolean skipWord(String word) {
+        while (bytes.hasRemaining() && isSpace(bytes.get(bytes.position())))
+            bytes.get();
+        for (int i = 0; i < word.length(); i++)
+            if (!bytes.hasRemaining() || bytes.get() != word.charAt(i))
+                return false;
+        return !bytes.hasRemaining() || isSpace(bytes.get(bytes.position()));
+    }
+
+    /**
+     * Read the next number written in decimal, after the spaces and the
+     * comments.
+     *
+     * @return The number.
+     * @throws InvalidConfigFileException If the next word is not a number or
+     *                                    is greater than Integer.MAX_VALUE.
+     */
+    private int readNumber() throws InvalidConfigFileException {
+        if (!skipComments())
+            throw new InvalidConfigFileException("A number is missing at the end of the file!");
+        long value = 0;
+        int digits = 0;
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get(bytes.position());
+            if (b < '0' || b > '9')
+                break;
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE)
+                throw new InvalidConfigFileException("The number at byte " + bytes.position() + " is too large!");
+            bytes.get();
+            digits++;
+        }
+        if (digits == 0 || (bytes.hasRemaining() && !isSpace(bytes.get(bytes.position()))))
+            throw new InvalidConfigFileException("A number is expected at byte " + bytes.position() + "!");
+        return (int) value;
+    }
+
+    /**
+     * Read the next vertex and convert it to the index of its city.
+     *
+     * @param nbCities The number of cities.
+     * @return The index of the city.
+     * @throws InvalidConfigFileException If the vertex is not between 1 and the
+     *                                    number of cities.
+     */
+    private int readVertex(int nbCities) throws InvalidConfigFileException {
+        int vertex = readNumber();
+        if (vertex < 1 || vertex > nbCities)
+            throw new InvalidConfigFileException("The vertex " + vertex + " is not between 1 and " + nbCities + "!");
+        return vertex - 1;
+    }
+
+    private void writeText(String text) throws IOException {
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++)
+            bytes.put((byte) text.charAt(i));
+    }
+
+    /**
+     * Write a number in decimal followed by a separator, without creating a
+     * String.
+     *
+     * @param value     The number, positive or zero.
+     * @param separator The separator.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeNumber(long value, char separator) throws IOException {
+        ensure(2 * MAX_DIGITS);
+        int start = bytes.position();
+        do {
+            bytes.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        // the digits were written from the lowest one
+        for (int i = start, j = bytes.position() - 1; i < j; i++, j--) {
+            byte digit = bytes.get(i);
+            bytes.put(i, bytes.get(j));
+            bytes.put(j, digit);
+        }
+        bytes.put((byte) separator);
+    }
+
+    private void ensure(int length) throws IOException {
+        if (bytes.remaining() < length)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * A partition of the cities of an urban community into parts, where each part
+ * can be copied into its own urban community and the charging points placed
+ * on the copies can be lifted back together.
+ *
+ * <p>
+ * The subclasses choose the parts by filling the cities grouped by part and
+ * the start of each part.
+ *
+ * @see Components
+ * @see Regions
+ */
+class Partition {
+
+    /**
+     * The partitioned urban community.
+     */
+    final UrbanCommunity urbanCommunity;
+
+    /**
+     * The cities grouped by part.
+     */
+    final int[] cities;
+
+    /**
+     * The position in cities of the first city of each part, followed by the
+     * number of cities, only the first count + 1 values are used.
+     */
+    final int[] starts;
+
+    /**
+     * The number of parts.
+     */
+    int count;
+
+    /**
+     * Create a new partition without any part, filled by the subclasses.
+     *
+     * @param urbanCommunity The urban community to partition.
+     */
+    Partition(UrbanCommunity urbanCommunity) {
+        this.urbanCommunity = urbanCommunity;
+        cities = new int[urbanCommunity.getCities().length];
+        starts = new int[cities.length + 1];
+    }
+
+    /**
+     * Get the number of parts.
+     *
+     * @return The number of parts.
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the number of cities of a part.
+     *
+     * @param part The index of the part.
+     * @return The number of cities of the part.
+     */
+    int getSize(int part) {
+        return starts[part + 1] - starts[part];
+    }
+
+    /**
+     * Copy each part into its own urban community, with the roads between the
+     * cities of the part.
+     *
+     * @return The urban community of each part.
+     */
+    UrbanCommunity[] split() {
+        UrbanCommunity[] parts = new UrbanCommunity[count];
+        int[] positions = new int[cities.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < count; i++)
+            parts[i] = urbanCommunity.subCommunity(Arrays.copyOfRange(cities, starts[i], starts[i + 1]),
+                    positions);
+        return parts;
+    }
+
+    /**
+     * Place the charging points of the copies of the parts on the partitioned
+     * urban community, replacing its charging points.
+     *
+     * @param parts The urban communities returned by {@link #split()}.
+     */
+    void lift(UrbanCommunity[] parts) {
+        for (int i = 0; i < count; i++)
+            for (int j = 0; j < getSize(i); j++)
+                urbanCommunity.setChargingPoint(cities[starts[i] + j], parts[i].hasChargingPoint(j));
+    }
+}
@@ -0,0 +1,83 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A solver racing several solvers at the same time, each one on its own copy
+ * of the urban community.
+ *
+ * <p>
+ * The solvers share the budget: each better valid placement found by one of
+ * them becomes the incumbent of the others, which prunes the exact search, and
+ * when a solver proves that the incumbent is optimal, the budget stops the
+ * others. When every solver has returned, the best placement of the budget is
+ * applied on the urban community. When a solver fails, the budget is cancelled
+ * so the others return at once and the failure is reported.
+ *
+ * <p>
+ * Each solver runs on its own thread rather than on the common fork-join pool,
+ * so they all progress at the same time even when the pool has fewer threads
+ * than solvers.
+ */
+public class Portfolio implements Solver {
+
+    /**
+     * The raced solvers.
+     */
+    private final Solver[] solvers;
+
+    /**
+     * Create a new portfolio of the solvers given in parameter.
+     *
+     * @param solvers The solvers to race, at least one.
+     */
+    public Portfolio(Solver... solvers) {
+        if (solvers.length == 0)
+            throw new IllegalArgumentException("A portfolio needs at least one solver");
+        this.solvers = solvers.clone();
+    }
+
+    @Override
+    public void solve(UrbanCommunity urbanCommunity, Budget budget) {
+        List<Callable<Void>> races = new ArrayList<>();
+        for (Solver solver : solvers) {
+            UrbanCommunity copy = urbanCommunity.copy();
+            races.add(() -> {
+                try {
+                    solver.solve(copy, budget);
+                } catch (RuntimeException | Error err) {
+                    // stop the other solvers now rather than at the deadline
+                    budget.cancel();
+                    throw err;
+                }
+                budget.offer(copy);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(solvers.length);
+        try {
+            for (Future<Void> result : executor.invokeAll(races)) {
+                try {
+                    result.get();
+                } catch (ExecutionException err) {
+                    budget.cancel();
+                    throw new IllegalStateException("A solver of the portfolio failed", err);
+                }
+            }
+        } catch (InterruptedException err) {
+            budget.cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        budget.applyBest(urbanCommunity);
+    }
+}
@@ -0,0 +1,151 @@
+package core;
+
+import graph.Graph;
+
+import java.util.function.IntConsumer;
+
+/**
+ * An improvement of a valid plan until it is a local optimum.
+ *
+ * <p>
+ * The redundant charging points are removed first. Then, for each city
+ * without charging point, a charging point is added to it and the charging
+ * points made redundant around it, up to two roads away, are removed. The
+ * change is kept when it removes at least two charging points (a 2-for-1
+ * swap), or when it removes one and more cities are covered twice (a 1-for-1
+ * swap preparing the next removals), otherwise it is undone. Since each kept
+ * change decreases the number of charging points or increases the number of
+ * cities covered twice, the passes end.
+ *
+ * <p>
+ * The coverage counters of the plan make each try proportional to the number
+ * of cities two roads away from the city, so a pass is near-linear on road
+ * networks.
+ *
+ * @see Algorithm#postOptimization(UrbanCommunity, Budget)
+ */
+class PostOptimizer {
+
+    /**
+     * The charging points, modified by the optimization.
+     */
+    private final ChargingPlan plan;
+
+    /**
+     * The roads between the cities.
+     */
+    private final Graph graph;
+
+    /**
+     * The budget of the optimization.
+     */
+    private final Budget budget;
+
+    /**
+     * The charging points removed by the current try, only the first
+     * nbDropped values are used.
+     */
+    private final int[] dropped;
+
+    /**
+     * The number of charging points removed by the current try.
+     */
+    private int nbDropped;
+
+    /**
+     * The city receiving a charging point in the current try.
+     */
+    private int candidate;
+
+    /**
+     * Removes the charging point of a city if it is redundant, kept in a field
+     * so the loops over the neighbors do not allocate.
+     */
+    private final IntConsumer dropIfRedundant;
+
+    /**
+     * Removes the redundant charging points of a city and its neighbors, kept
+     * in a field like dropIfRedundant.
+     */
+    private final IntConsumer dropAround;
+
+    /**
+     * Create a new optimization of the plan given in parameter.
+     *
+     * @param plan   The charging points, modified by the optimization.
+     * @param budget The budget of the optimization.
+     */
+    PostOptimizer(ChargingPlan plan, Budget budget) {
+        this.plan = plan;
+        this.budget = budget;
+        graph = plan.getGraph();
+        dropped = new int[graph.order()];
+        dropIfRedundant = city -> {
+            if (city != candidate && plan.canRemove(city)) {
+                plan.remove(city);
+                dropped[nbDropped++] = city;
+            }
+        };
+        dropAround = city -> {
+            dropIfRedundant.accept(city);
+            graph.forEachNeighbor(city, dropIfRedundant);
+        };
+    }
+
+    /**
+     * Improve the plan until it is a local optimum or until the budget is
+     * exhausted. Nothing happens if the plan is invalid.
+     *
+     * @return The number of charging points removed.
+     */
+    int optimize() {
+        if (!plan.isValid())
+            return 0;
+        int start = plan.getScore();
+        int nbCities = graph.order();
+
+        for (int i = 0; i < nbCities; i++)
+            if (plan.canRemove(i))
+                plan.remove(i);
+
+        boolean changed = true;
+        long tries = 0;
+        while (changed && !budget.isExhausted()) {
+            changed = false;
+            for (int i = 0; i < nbCities; i++) {
+                if (plan.hasChargingPoint(i))
+                    continue;
+                if ((++tries & 1023) == 0 && budget.isExhausted())
+                    break;
+                changed |= trySwap(i);
+            }
+        }
+
+        budget.offer(plan.getChargingPoints(), plan.getScore());
+        return start - plan.getScore();
+    }
+
+    /**
+     * Add a charging point to the city and remove the charging points made
+     * redundant around it, then undo it if the plan is not better.
+     *
+     * @param city The city without charging point.
+     * @return True if the change was kept.
+     */
+    private boolean trySwap(int city) {
+        int score = plan.getScore();
+        int coveredTwice = plan.getCoveredTwice();
+        candidate = city;
+        nbDropped = 0;
+        plan.add(city);
+        graph.forEachNeighbor(city, dropAround);
+
+        if (plan.getScore() < score || (plan.getScore() == score && plan.getCoveredTwice() > coveredTwice))
+            return true;
+
+        for (int i = 0; i < nbDropped; i++)
+            plan.add(dropped[i]);
+        plan.remove(city);
+        return false;
+    }
+}
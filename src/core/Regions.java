@@ -0,0 +1,114 @@
+package core;
+
+import graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * A partition of an urban community into regions of the same size, grown by
+ * breadth-first searches so they are compact and few roads join two regions.
+ *
+ * <p>
+ * When a region is full, the next one grows from the cities of the region
+ * whose neighbors were not reached yet, so the regions follow each other
+ * through the network. A region which cannot grow anymore, at the end
+ * of a connected component, continues from any city without region.
+ *
+ * <p>
+ * Each region covers its own cities, so the charging points of the regions
+ * form a valid plan, with redundant charging points along the cut roads that
+ * {@link #repair()} removes.
+ *
+ * @see Algorithm#partitionAlgorithm(UrbanCommunity, int, java.util.function.Consumer)
+ */
+class Regions extends Partition {
+
+    /**
+     * The region of each city.
+     */
+    private final int[] regions;
+
+    /**
+     * Split the urban community given in parameter into regions.
+     *
+     * @param urbanCommunity The urban community to split.
+     * @param nbRegions      The number of regions, at least one.
+     */
+    Regions(UrbanCommunity urbanCommunity, int nbRegions) {
+        super(urbanCommunity);
+        if (nbRegions < 1)
+            throw new IllegalArgumentException("The number of regions must be positive");
+        Graph graph = urbanCommunity.getGraph();
+        int nbCities = graph.order();
+        int capacity = (nbCities + nbRegions - 1) / nbRegions;
+        regions = new int[nbCities];
+        Arrays.fill(regions, -1);
+
+        // cities is also the queue of the searches, the cities between head and size are waiting
+        int[] size = { 0 };
+        int head = 0;
+        int unassigned = 0;
+        while (size[0] < nbCities) {
+            int region = count++;
+            int start = size[0];
+            starts[region] = start;
+
+            // the search goes on from the waiting cities of the previous region
+            while (size[0] - start < capacity && size[0] < nbCities) {
+                if (head == size[0]) {
+                    // the search is over, continue from another city
+                    while (regions[unassigned] != -1)
+                        unassigned++;
+                    regions[unassigned] = region;
+                    cities[size[0]++] = unassigned;
+                }
+                graph.forEachNeighbor(cities[head++], neighbor -> {
+                    if (regions[neighbor] == -1 && size[0] - start < capacity) {
+                        regions[neighbor] = region;
+                        cities[size[0]++] = neighbor;
+                    }
+                });
+            }
+        }
+        starts[count] = nbCities;
+    }
+
+    /**
+     * Count the roads between two regions.
+     *
+     * @return The number of cut roads.
+     */
+    int getCutRoads() {
+        Graph graph = urbanCommunity.getGraph();
+        int[] cut = { 0 };
+        for (int i = 0; i < cities.length; i++) {
+            int city = i;
+            graph.forEachNeighbor(i, neighbor -> {
+                if (neighbor > city && regions[neighbor] != regions[city])
+                    cut[0]++;
+            });
+        }
+        return cut[0];
+    }
+
+    /**
+     * Repair the lifted charging points: a charging point is added to each
+     * uncovered city, left by an algorithm which did not cover its region, then
+     * the charging points around the cut roads are removed when they are not
+     * needed anymore, since each region covered its cities alone.
+     */
+    void repair() {
+        Graph graph = urbanCommunity.getGraph();
+        for (int i = 0; i < cities.length; i++)
+            if (!urbanCommunity.isCovered(i))
+                urbanCommunity.setChargingPoint(i, true);
+
+        for (int i = 0; i < cities.length; i++) {
+            int city = i;
+            if (graph.anyNeighbor(city, neighbor -> regions[neighbor] != regions[city])) {
+                urbanCommunity.tryRemoveChargingPoint(city);
+                graph.forEachNeighbor(city, urbanCommunity::tryRemoveChargingPoint);
+            }
+        }
+    }
+}
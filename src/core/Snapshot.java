@@ -0,0 +1,297 @@
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+import exceptions.InvalidConfigFileException;
+import graph.CsrGraph;
+import graph.EdgeList;
+import graph.Graph;
+
+/**
+ * A compact binary format of the urban communities, read without parsing any
+ * line.
+ *
+ * <p>
+ * All the numbers are little-endian. The file contains:
+ * <ul>
+ * <li>a header: the magic number, the version, the number of cities and the
+ * number of roads, four ints;</li>
+ * <li>the names of the cities in UTF-8, each one after its length in bytes
+ * written as a varint;</li>
+ * <li>the roads: for each city, the number of its neighbors with a greater
+ * index then the gaps between them, starting from the city, all written as
+ * varints so most roads of a road network fit in a few bytes;</li>
+ * <li>the charging points packed in bits, as longs.</li>
+ * </ul>
+ *
+ * <p>
+ * A varint stores 7 bits per byte, from the lowest ones, the highest bit of a
+ * byte being set when another byte follows.
+ *
+ * @see ConfigParser#saveSnapshot(File, UrbanCommunity)
+ * @see ConfigParser#loadSnapshot(File)
+ */
+class Snapshot {
+
+    /**
+     * The first bytes of a snapshot, "UCSN" in ASCII.
+     */
+    private static final int MAGIC = 0x4E534355;
+
+    /**
+     * The version of the format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the buffer of the writer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The channel of the file being written.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The bytes waiting to be written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The city whose neighbors are counted or written, then the previous
+     * neighbor written since the gaps start from it.
+     */
+    private int previous;
+
+    /**
+     * The number of neighbors counted by countHigher.
+     */
+    private int count;
+
+    /**
+     * Counts the neighbors with a greater index, kept in a field like
+     * writeGap.
+     */
+    private final IntConsumer countHigher;
+
+    /**
+     * Writes the gap to a neighbor with a greater index, kept in a field so
+     * the loops over the neighbors do not allocate.
+     */
+    private final IntConsumer writeGap;
+
+    private Snapshot(FileChannel channel) {
+        this.channel = channel;
+        countHigher = neighbor -> {
+            if (neighbor > previous)
+                count++;
+        };
+        writeGap = neighbor -> {
+            if (neighbor > previous) {
+                writeVarint(neighbor - previous);
+                previous = neighbor;
+            }
+        };
+    }
+
+    /**
+     * Save the urban community in the file.
+     *
+     * @param file           The file.
+     * @param urbanCommunity The urban community.
+     * @throws IOException If the file cannot be written.
+     */
+    static void save(File file, UrbanCommunity urbanCommunity) throws IOException {
+        City[] cities = urbanCommunity.getCities();
+        Graph graph = urbanCommunity.getGraph();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Snapshot writer = new Snapshot(channel);
+            int[] higher = new int[cities.length];
+            long nbRoads = 0;
+            for (int city = 0; city < cities.length; city++) {
+                writer.previous = city;
+                writer.count = 0;
+                graph.forEachNeighbor(city, writer.countHigher);
+                higher[city] = writer.count;
+                nbRoads += writer.count;
+            }
+            if (nbRoads > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Too many roads to be saved");
+
+            writer.ensure(16);
+            writer.buffer.putInt(MAGIC).putInt(VERSION).putInt(cities.length).putInt((int) nbRoads);
+
+            for (City city : cities) {
+                byte[] name = city.getName().getBytes(StandardCharsets.UTF_8);
+                writer.writeVarint(name.length);
+                for (int i = 0; i < name.length; i += BUFFER_SIZE) {
+                    int length = Math.min(BUFFER_SIZE, name.length - i);
+                    writer.ensure(length);
+                    writer.buffer.put(name, i, length);
+                }
+            }
+
+            for (int city = 0; city < cities.length; city++) {
+                writer.writeVarint(higher[city]);
+                writer.previous = city;
+                graph.forEachNeighbor(city, writer.writeGap);
+            }
+
+            for (long word : urbanCommunity.getChargingPoints()) {
+                writer.ensure(Long.BYTES);
+                writer.buffer.putLong(word);
+            }
+            writer.flush();
+        } catch (UncheckedIOException err) {
+            throw err.getCause();
+        }
+    }
+
+    /**
+     * Load the urban community stored in the file.
+     *
+     * @param file The file.
+     * @return A new urban community instance.
+     * @throws IOException                If the file cannot be read.
+     * @throws InvalidConfigFileException If the file is not a snapshot or is
+     *                                    corrupted.
+     */
+    static UrbanCommunity load(File file) throws IOException, InvalidConfigFileException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new InvalidConfigFileException("The snapshot file is too large!");
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if (bytes.getInt() != MAGIC)
+                throw new InvalidConfigFileException("This file is not a snapshot!");
+            if (bytes.getInt() != VERSION)
+                throw new InvalidConfigFileException("This snapshot version is not supported!");
+            int nbCities = bytes.getInt();
+            int nbRoads = bytes.getInt();
+            // each city and each road takes at least one byte
+            if (nbCities < 0 || nbRoads < 0 || (long) nbCities + nbRoads > bytes.remaining())
+                throw new InvalidConfigFileException("The snapshot file is corrupted!");
+
+            City[] cities = new City[nbCities];
+            for (int i = 0; i < nbCities; i++) {
+                int length = readVarint(bytes);
+                if (length > bytes.remaining())
+                    throw new InvalidConfigFileException("The snapshot file is corrupted!");
+                byte[] name = new byte[length];
+                bytes.get(name);
+                cities[i] = new City(new String(name, StandardCharsets.UTF_8));
+            }
+
+            int[] sources = new int[nbRoads];
+            int[] targets = new int[nbRoads];
+            int road = 0;
+            for (int city = 0; city < nbCities; city++) {
+                int count = readVarint(bytes);
+                int neighbor = city;
+                for (int i = 0; i < count; i++) {
+                    int gap = readVarint(bytes);
+                    // the neighbors are greater than the city and increasing
+                    if (gap < 1 || gap >= nbCities - neighbor)
+                        throw new InvalidConfigFileException("The snapshot file is corrupted!");
+                    neighbor += gap;
+                    sources[road] = city;
+                    targets[road] = neighbor;
+                    road++;
+                }
+            }
+            if (road != nbRoads)
+                throw new InvalidConfigFileException("The snapshot file is corrupted!");
+
+            long[] chargingPoints = new long[(nbCities + 63) >>> 6];
+            bytes.asLongBuffer().get(chargingPoints);
+            bytes.position(bytes.position() + chargingPoints.length * Long.BYTES);
+            if (bytes.hasRemaining())
+                throw new InvalidConfigFileException("The snapshot file is corrupted!");
+
+            UrbanCommunity urbanCommunity = new UrbanCommunity(cities,
+                    new CsrGraph(nbCities, new EdgeList(sources, targets)), new CityIndex(cities));
+            urbanCommunity.setChargingPoints(chargingPoints);
+            return urbanCommunity;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException err) {
+            throw new InvalidConfigFileException("The snapshot file is corrupted!");
+        }
+    }
+
+    /**
+     * Read a varint.
+     *
+     * @param bytes The bytes, read from their position.
+     * @return The value, at most Integer.MAX_VALUE.
+     * @throws InvalidConfigFileException If the varint is too large.
+     */
+    private static int readVarint(ByteBuffer bytes) throws InvalidConfigFileException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = bytes.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0)
+                    break;
+                return value;
+            }
+        }
+        throw new InvalidConfigFileException("The snapshot file is corrupted!");
+    }
+
+    /**
+     * Write a varint.
+     *
+     * @param value The value, positive or zero.
+     */
+    private void writeVarint(int value) {
+        try {
+            ensure(5);
+        } catch (IOException err) {
+            // the gaps are written from the loops over the neighbors
+            throw new UncheckedIOException(err);
+        }
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Make room in the buffer, writing its bytes to the file if needed.
+     *
+     * @param length The number of bytes to put in the buffer.
+     * @throws IOException If the file cannot be written.
+     */
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length)
+            flush();
+    }
+
+    /**
+     * Write the bytes of the buffer to the file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,131 @@
+package core;
+
+/**
+ * An algorithm placing the charging points of an urban community within a
+ * budget.
+ *
+ * <p>
+ * A solver gives each better valid placement it finds to the budget, returns
+ * soon after the budget is exhausted, and leaves the best valid placement it
+ * found on the urban community. The solvers below wrap the methods of
+ * {@link Algorithm}.
+ *
+ * @see Budget
+ */
+@FunctionalInterface
+public interface Solver {
+
+    /**
+     * Place the charging points of the urban community.
+     *
+     * @param urbanCommunity The urban community.
+     * @param budget         The budget of the solver, it belongs to the urban
+     *                       community.
+     */
+    void solve(UrbanCommunity urbanCommunity, Budget budget);
+
+    /**
+     * Get a solver running this solver, then the post optimization of its
+     * result.
+     *
+     * @return The solver.
+     * @see Algorithm#postOptimization(UrbanCommunity, Budget)
+     */
+    default Solver withPostOptimization() {
+        return (urbanCommunity, budget) -> {
+            solve(urbanCommunity, budget);
+            Algorithm.postOptimization(urbanCommunity, budget);
+        };
+    }
+
+    /**
+     * Get a solver running {@link Algorithm#greedyAlgorithm(UrbanCommunity)},
+     * whose time is linear so it ignores the budget.
+     *
+     * @return The solver.
+     */
+    static Solver greedy() {
+        return (urbanCommunity, budget) -> {
+            Algorithm.greedyAlgorithm(urbanCommunity);
+            budget.offer(urbanCommunity);
+        };
+    }
+
+    /**
+     * Get a solver running the less naive algorithm from a charging point in
+     * each city.
+     *
+     * @param numberIteration The number of iterations without improvement.
+     * @return The solver.
+     * @see Algorithm#lessNaiveAlgorithm(UrbanCommunity, int, Budget)
+     */
+    static Solver lessNaive(int numberIteration) {
+        return (urbanCommunity, budget) -> {
+            Algorithm.addAllChargingPoint(urbanCommunity);
+            Algorithm.lessNaiveAlgorithm(urbanCommunity, numberIteration, budget);
+        };
+    }
+
+    /**
+     * Get a solver running the parallel less naive algorithm.
+     *
+     * @param numberIteration The number of iterations without improvement of
+     *                        each search.
+     * @param nbStarts        The number of searches.
+     * @param seed            The seed of the random generators.
+     * @return The solver.
+     * @see Algorithm#multiStartAlgorithm(UrbanCommunity, int, int, long, Budget)
+     */
+    static Solver multiStart(int numberIteration, int nbStarts, long seed) {
+        return (urbanCommunity, budget) -> Algorithm.multiStartAlgorithm(urbanCommunity, numberIteration,
+                nbStarts, seed, budget);
+    }
+
+    /**
+     * Get a solver running the exact algorithm, its memory grows with the
+     * square of the number of cities so it is meant for small urban
+     * communities or kernels.
+     *
+     * @return The solver.
+     * @see Algorithm#exactAlgorithm(UrbanCommunity, long, Budget)
+     */
+    static Solver exact() {
+        return (urbanCommunity, budget) -> Algorithm.exactAlgorithm(urbanCommunity, Long.MAX_VALUE, budget);
+    }
+
+    /**
+     * Get a solver running a simulated annealing from a greedy solution, whose
+     * temperature decreases during the time left in the budget.
+     *
+     * @param startTemperature The temperature at the start.
+     * @param endTemperature   The temperature at the end.
+     * @param seed             The seed of the random generator.
+     * @return The solver.
+     * @see Algorithm#annealingAlgorithm(UrbanCommunity, long, Budget, double, double, long)
+     */
+    static Solver annealing(double startTemperature, double endTemperature, long seed) {
+        return (urbanCommunity, budget) -> {
+            Algorithm.greedyAlgorithm(urbanCommunity);
+            budget.offer(urbanCommunity);
+            Algorithm.annealingAlgorithm(urbanCommunity, Long.MAX_VALUE, budget, startTemperature, endTemperature,
+                    seed);
+        };
+    }
+
+    /**
+     * Get a solver running a tabu search from a greedy solution.
+     *
+     * @param tenure The number of iterations during which a changed city cannot
+     *               be changed again.
+     * @param seed   The seed of the random generator.
+     * @return The solver.
+     * @see Algorithm#tabuAlgorithm(UrbanCommunity, long, Budget, int, long)
+     */
+    static Solver tabu(int tenure, long seed) {
+        return (urbanCommunity, budget) -> {
+            Algorithm.greedyAlgorithm(urbanCommunity);
+            budget.offer(urbanCommunity);
+            Algorithm.tabuAlgorithm(urbanCommunity, Long.MAX_VALUE, budget, tenure, seed);
+        };
+    }
+}
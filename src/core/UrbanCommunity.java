@@ -1,14 +1,16 @@
 package core;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
 import exceptions.AccessibilityException;
 import graph.Graph;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import graph.BitsetGraph;
+import graph.CsrGraph;
+import graph.EdgeList;
 
 /**
  * Represents an urban community.
@@ -44,18 +46,86 @@ public class UrbanCommunity {
      */
     private City[] cities;
 
+    /**
+     * Stores the charging points of the cities and counts them around each
+     * city.
+     */
+    private final ChargingPlan plan;
+
+    /**
+     * Stores the index of each city by name, built with the urban community.
+     */
+    private final CityIndex cityIndex;
+
+    /**
+     * Stores the lower bound of the score, -1 when it must be computed again
+     * because a road was added.
+     */
+    private int lowerBound = -1;
+
     /**
      * The constructor of the class UrbanCommunity.
      *
      * <p>
      * Creates a new UrbanCommunity object with the cities given in parameter.
+     * The roads are stored in an adjacency matrix packed in bits, so they can be
+     * added later.
      *
      * @param cities
      *               The cities in the urban community.
      */
     public UrbanCommunity(City[] cities) {
+        this(cities, new BitsetGraph(cities.length));
+    }
+
+    /**
+     * Creates a new UrbanCommunity object with the cities and the roads given in
+     * parameter.
+     *
+     * <p>
+     * The vertex i of the graph is the city at the index i in the array.
+     *
+     * @param cities
+     *               The cities in the urban community.
+     * @param graph
+     *               The roads between the cities.
+     *
+     * @throws IllegalArgumentException
+     *                                  If the order of the graph is not the
+     *                                  number of cities.
+     */
+    public UrbanCommunity(City[] cities, Graph graph) {
+        this(cities, graph, new CityIndex(cities));
+    }
+
+    /**
+     * Creates a new UrbanCommunity object with the cities, the roads and the
+     * index of the cities given in parameter.
+     *
+     * @param cities
+     *                  The cities in the urban community.
+     * @param graph
+     *                  The roads between the cities.
+     * @param cityIndex
+     *                  The index of the cities by name.
+     *
+     * @throws IllegalArgumentException
+     *                                  If the order of the graph is not the
+     *                                  number of cities.
+     */
+    UrbanCommunity(City[] cities, Graph graph, CityIndex cityIndex) {
+        if (graph.order() != cities.length) {
+            throw new IllegalArgumentException("The graph order must be the number of cities");
+        }
         this.cities = cities;
-        graph = new Graph(cities.length);
+        this.graph = graph;
+        this.cityIndex = cityIndex;
+        plan = new ChargingPlan(graph);
+        for (int i = 0; i < cities.length; i++) {
+            if (cities[i].hasChargingPoint()) {
+                plan.add(i);
+            }
+        }
     }
 
     /**
@@ -83,17 +153,35 @@ public class UrbanCommunity {
      *                                  same cities (they have the same index).
      */
     public void addRoad(String city1, String city2) {
-        int city1Index = getCityIndex(city1);
-        int city2Index = getCityIndex(city2);
+        addRoad(getCityIndex(city1), getCityIndex(city2));
+    }
 
-        if (city1Index == -1 || city2Index == -1) {
+    /**
+     * Add a road between two cities whose indexes are given in parameter.
+     *
+     * @param city1Index
+     *                   The index of the first city.
+     *
+     * @param city2Index
+     *                   The index of the second city.
+     *
+     * @throws IllegalArgumentException
+     *                                  If one of the two indexes is not in the
+     *                                  array "cities".
+     *                                  If the indexes are the same.
+     *
+     * @see #addRoad(String, String)
+     */
+    public void addRoad(int city1Index, int city2Index) {
+        if (!isCityIndex(city1Index) || !isCityIndex(city2Index)) {
             throw new IllegalArgumentException("One of the parameters is not in the list 'cities'");
         }
         if (city1Index == city2Index) {
             throw new IllegalArgumentException("You cannot add a road between the same city");
         }
 
-        graph.addEdge(city1Index, city2Index);
+        plan.addRoad(city1Index, city2Index);
+        lowerBound = -1;
     }
 
     /**
@@ -103,9 +191,17 @@ public class UrbanCommunity {
      *             The name of the city.
      */
     public void addChargingPoint(String city) {
-        int indexCity = getCityIndex(city);
+        addChargingPoint(getCityIndex(city));
+    }
 
-        if (indexCity == -1) {
+    /**
+     * Add a charging point to the city whose index is given in parameter.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     */
+    public void addChargingPoint(int indexCity) {
+        if (!isCityIndex(indexCity)) {
             throw new IllegalArgumentException("The parameter is not in the list 'cities'");
         }
 
@@ -113,33 +209,177 @@ public class UrbanCommunity {
             throw new IllegalArgumentException("This city already has a charging point");
         }
 
-        cities[indexCity].addChargingPoint();
+        setChargingPoint(indexCity, true);
     }
 
     /**
-     * Check if this city have a neighbor with a charging point
-     * 
+     * Add or remove the charging point of a city without any check.
+     *
      * @param indexCity
-     *                  The index of the city in the cities array
+     *                      The index of the city in the cities array.
+     * @param chargingPoint
+     *                      Whether the city has a charging point or not.
+     */
+    void setChargingPoint(int indexCity, boolean chargingPoint) {
+        if (chargingPoint) {
+            cities[indexCity].addChargingPoint();
+            plan.add(indexCity);
+        } else {
+            cities[indexCity].removeChargingPoint();
+            plan.remove(indexCity);
+        }
+    }
+
+    /**
+     * Set the charging points of all the cities without any check.
      *
-     * @return True if this city have a neighbor with charging point
+     * @param chargingPoints
+     *                       The cities with a charging point, the city i is in
+     *                       the set if the bit {@code i % 64} of the word
+     *                       {@code i / 64} is set.
      */
-    private boolean hasNeighborWithChargingPoint(int indexCity) {
-        if (indexCity == -1) {
-            throw new IllegalArgumentException("The parameter is not in the list 'cities'");
+    void setChargingPoints(long[] chargingPoints) {
+        for (int i = 0; i < cities.length; i++) {
+            setChargingPoint(i, (chargingPoints[i >>> 6] & (1L << i)) != 0);
         }
+    }
 
-        int[] neighbors = graph.neighbors(indexCity);
-        boolean hasNeighborsPossessingChargingPoint = false;
+    /**
+     * Cover the city whose index is given in parameter by a charging point
+     * outside the urban community, when it is a part of a larger one. The city
+     * then never needs a charging point in its closed neighborhood.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     */
+    void coverOutside(int indexCity) {
+        plan.coverOutside(indexCity);
+        lowerBound = -1;
+    }
+
+    /**
+     * Check if the city whose index is given in parameter is covered by a
+     * charging point outside the urban community.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return True if the city is covered from outside.
+     */
+    boolean isCoveredOutside(int indexCity) {
+        return plan.isCoveredOutside(indexCity);
+    }
+
+    /**
+     * Create a copy of the urban community sharing its roads, whose charging
+     * points can be modified independently, for example by another thread. No
+     * road must be added while the copy is used.
+     *
+     * @return The copy of the urban community.
+     */
+    UrbanCommunity copy() {
+        City[] copies = new City[cities.length];
+        for (int i = 0; i < cities.length; i++) {
+            copies[i] = new City(cities[i]);
+            if (cities[i].hasChargingPoint()) {
+                copies[i].addChargingPoint();
+            }
+        }
 
-        for (int indexNeighbor : neighbors) {
-            if (cities[indexNeighbor].hasChargingPoint()) {
-                hasNeighborsPossessingChargingPoint = true;
-                break;
+        UrbanCommunity res = new UrbanCommunity(copies, graph, cityIndex);
+        for (int i = 0; i < cities.length; i++) {
+            if (isCoveredOutside(i)) {
+                res.coverOutside(i);
             }
         }
+        res.lowerBound = lowerBound;
+        return res;
+    }
+
+    /**
+     * Create the urban community made of the cities whose indexes are given in
+     * parameter and of the roads between them. The cities are copied without
+     * their charging points, and the cities covered from outside stay covered.
+     *
+     * @param cityIndexes
+     *                    The indexes of the cities, the city i of the new urban
+     *                    community is the city cityIndexes[i].
+     * @param positions
+     *                    An array of the size of the cities array filled with
+     *                    -1, it is used during the call and filled with -1
+     *                    again after.
+     *
+     * @return The new urban community.
+     */
+    UrbanCommunity subCommunity(int[] cityIndexes, int[] positions) {
+        City[] subCities = new City[cityIndexes.length];
+        for (int i = 0; i < cityIndexes.length; i++) {
+            positions[cityIndexes[i]] = i;
+            subCities[i] = new City(cities[cityIndexes[i]]);
+        }
+
+        EdgeList roads = new EdgeList();
+        for (int i = 0; i < cityIndexes.length; i++) {
+            int indexCity = i;
+            graph.forEachNeighbor(cityIndexes[i], neighbor -> {
+                if (positions[neighbor] > indexCity) {
+                    roads.add(indexCity, positions[neighbor]);
+                }
+            });
+        }
+
+        UrbanCommunity res = new UrbanCommunity(subCities, new CsrGraph(subCities.length, roads));
+        for (int i = 0; i < cityIndexes.length; i++) {
+            positions[cityIndexes[i]] = -1;
+            if (isCoveredOutside(cityIndexes[i])) {
+                res.coverOutside(i);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the cities with a charging point, packed in bits.
+     *
+     * @return The set of the cities with a charging point, it must not be
+     *         modified.
+     */
+    long[] getChargingPoints() {
+        return plan.getChargingPoints();
+    }
+
+    /**
+     * Get a copy of the charging points of the urban community, which can be
+     * modified without changing the urban community.
+     *
+     * @return A copy of the charging plan.
+     */
+    ChargingPlan copyPlan() {
+        return new ChargingPlan(plan);
+    }
+
+    /**
+     * Check if this city have a neighbor with a charging point
+     * 
+     * @param indexCity
+     *                  The index of the city in the cities array
+     *
+     * @return True if this city have a neighbor with charging point
+     */
+    private boolean hasNeighborWithChargingPoint(int indexCity) {
+        return plan.hasNeighborWithChargingPoint(indexCity);
+    }
 
-        return hasNeighborsPossessingChargingPoint;
+    /**
+     * Check if this city or one of its neighbors has a charging point
+     *
+     * @param indexCity
+     *                  The index of the city in the cities array
+     *
+     * @return True if this city is covered
+     */
+    public boolean isCovered(int indexCity) {
+        return plan.isCovered(indexCity);
     }
 
     /**
@@ -155,9 +395,24 @@ public class UrbanCommunity {
      *                                point.
      */
     public void removeChargingPoint(String city) throws AccessibilityException {
-        int indexCity = getCityIndex(city);
+        removeChargingPoint(getCityIndex(city));
+    }
 
-        if (indexCity == -1) {
+    /**
+     * Remove the charging point to the city whose index is given in parameter.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @throws AccessibilityException
+     *                                If the city does not have a neighbor
+     *                                possessing a charging point, or if a
+     *                                neighbor depends on it.
+     *
+     * @see #removeChargingPoint(String)
+     */
+    public void removeChargingPoint(int indexCity) throws AccessibilityException {
+        if (!isCityIndex(indexCity)) {
             throw new IllegalArgumentException("The parameter is not in the list 'cities'");
         }
 
@@ -166,20 +421,14 @@ public class UrbanCommunity {
         }
 
         if (hasNeighborWithChargingPoint(indexCity)) {
-            cities[indexCity].removeChargingPoint();
-            ArrayList<Integer> dependentCitiesIndex = new ArrayList<>();
-            for (int neighbor : graph.neighbors(indexCity)) {
-                if (!cities[neighbor].hasChargingPoint() && !hasNeighborWithChargingPoint(neighbor)) {
-                    dependentCitiesIndex.add(neighbor);
-                }
-            }
-            cities[indexCity].addChargingPoint();
-            if (!dependentCitiesIndex.isEmpty()) {
+            if (!plan.canRemove(indexCity)) {
                 StringBuilder errorMessage = new StringBuilder("You cannot remove the charging point of this city ");
                 errorMessage.append("because the following(s) neighbor depend(s) on this city :\n");
-                for (int dependentCities : dependentCitiesIndex) {
-                    errorMessage.append("- ").append(cities[dependentCities].getName()).append("\n");
-                }
+                graph.forEachNeighbor(indexCity, neighbor -> {
+                    if (plan.getCoverage(neighbor) == 1) {
+                        errorMessage.append("- ").append(cities[neighbor].getName()).append("\n");
+                    }
+                });
                 throw new AccessibilityException(errorMessage.toString());
             }
         } else {
@@ -187,17 +436,90 @@ public class UrbanCommunity {
                     "it does not have a neighbor possessing a charging point");
         }
 
-        cities[indexCity].removeChargingPoint();
+        setChargingPoint(indexCity, false);
+    }
+
+    /**
+     * Check if the charging point of the city whose index is given in parameter
+     * can be removed without making a city uncovered.
+     *
+     * <p>
+     * Unlike {@link #removeChargingPoint(int)}, this method does not allocate
+     * anything, it is meant for the loops of the algorithms.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return True if the city has a charging point that can be removed.
+     */
+    public boolean canRemoveChargingPoint(int indexCity) {
+        if (!isCityIndex(indexCity)) {
+            throw new IllegalArgumentException("The parameter is not in the list 'cities'");
+        }
+
+        return plan.canRemove(indexCity);
     }
 
+    /**
+     * Remove the charging point of the city whose index is given in parameter if
+     * it can be removed.
+     *
+     * <p>
+     * Unlike {@link #removeChargingPoint(int)}, this method does not throw an
+     * exception when the charging point cannot be removed, it is meant for the
+     * loops of the algorithms.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return True if the charging point was removed.
+     */
+    public boolean tryRemoveChargingPoint(int indexCity) {
+        if (!canRemoveChargingPoint(indexCity)) {
+            return false;
+        }
+
+        setChargingPoint(indexCity, false);
+        return true;
+    }
+
+    /**
+     * Get the number of charging points in the urban community.
+     *
+     * @return The number of cities with a charging point.
+     */
     public int urbanCommunityScore() {
-        int score = 0;
-        for (City city : cities) {
-            if (city.hasChargingPoint()) {
-                score++;
-            }
+        return plan.getScore();
+    }
+
+    /**
+     * Get a lower bound of the score of any valid placement of the charging
+     * points, so a valid placement reaching it is optimal. The bound is computed
+     * in a time proportional to the number of roads, then kept until a road is
+     * added.
+     *
+     * @return The lower bound of the number of charging points.
+     */
+    public int lowerBound() {
+        if (lowerBound == -1) {
+            lowerBound = LowerBounds.of(plan);
         }
-        return score;
+        return lowerBound;
+    }
+
+    /**
+     * Get the optimality gap of the current charging points: the part of them
+     * which may be more than in an optimal placement.
+     *
+     * @return The gap between 0 and 1, 0 if the charging points are proven
+     *         optimal.
+     */
+    public double optimalityGap() {
+        int score = urbanCommunityScore();
+        if (score == 0) {
+            return 0;
+        }
+        return Math.max(0, score - lowerBound()) / (double) score;
     }
 
     /**
@@ -213,15 +535,52 @@ public class UrbanCommunity {
      *         - The integer of the index else
      */
     public int getCityIndex(String city) {
-        int cityIndex = -1;
-        for (int i = 0; i < cities.length; i++) {
-            if (cities[i].getName().equalsIgnoreCase(city)) {
-                cityIndex = i;
-                return cityIndex;
-            }
-        }
+        return cityIndex.indexOf(city);
+    }
+
+    /**
+     * Check if the index given in parameter is the index of a city.
+     *
+     * @param indexCity
+     *                  The index to check.
+     *
+     * @return True if the index is in the cities array.
+     */
+    private boolean isCityIndex(int indexCity) {
+        return indexCity >= 0 && indexCity < cities.length;
+    }
+
+    /**
+     * Check if the city whose index is given in parameter has a charging point.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return True if the city has a charging point.
+     */
+    public boolean hasChargingPoint(int indexCity) {
+        return cities[indexCity].hasChargingPoint();
+    }
+
+    /**
+     * Get the number of neighbors of the city whose index is given in parameter.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return The number of roads from this city.
+     */
+    public int getDegree(int indexCity) {
+        return graph.degree(indexCity);
+    }
 
-        return cityIndex;
+    /**
+     * Get the roads between the cities, the vertex i is the city at the index i.
+     *
+     * @return The graph of the roads, it must not be modified.
+     */
+    Graph getGraph() {
+        return graph;
     }
 
     public City[] getCities() {
@@ -229,53 +588,238 @@ public class UrbanCommunity {
     }
 
     public City[] getNeighbors(String city) {
-        List<City> neighbors = new ArrayList<>();
         int indexCity = getCityIndex(city);
+
+        if (indexCity == -1) {
+            throw new IllegalArgumentException("The parameter is not in the list 'cities'");
+        }
+
+        return getNeighbors(indexCity);
+    }
+
+    /**
+     * Get the neighbors of the city whose index is given in parameter.
+     *
+     * @param indexCity
+     *                  The index of the city.
+     *
+     * @return The cities with a road to this city.
+     */
+    public City[] getNeighbors(int indexCity) {
+        City[] neighbors = new City[graph.degree(indexCity)];
+        int i = 0;
         for (int index : graph.neighbors(indexCity)) {
-            neighbors.add(cities[index]);
+            neighbors[i++] = cities[index];
         }
-        return neighbors.toArray(new City[neighbors.size()]);
+        return neighbors;
     }
 
     /**
      * Returns true if the urban community is valid.
      */
     public boolean isValid() {
-        for(City city: cities) {
-            if(!city.hasChargingPoint()) {
-                boolean charged = false;
-                for(City neighbor: getNeighbors(city.getName())) {
-                    if(neighbor.hasChargingPoint()) {
-                        charged = true;
-                        break;
-                    }
+        return plan.isValid();
+    }
+
+    /**
+     * Get the number of cities without charging point nor neighbor possessing
+     * one.
+     *
+     * @return The number of uncovered cities.
+     */
+    public int getUncoveredCount() {
+        return plan.getUncovered();
+    }
+
+    /**
+     * Get the urban community in the dot language, the cities with a charging
+     * point are filled in blue.
+     *
+     * @return The graph in the dot language.
+     */
+    public String toDot() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            toDot(sb, false);
+        } catch (IOException err) {
+            // a StringBuilder never throws it
+            throw new UncheckedIOException(err);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the urban community in the dot language as it is produced, so a
+     * large urban community is never held in a String.
+     *
+     * <p>
+     * Each road is written once, from the city with the lower index. When the
+     * leaves are collapsed, the cities without charging point whose only
+     * neighbor has one are not written, and the label of this neighbor counts
+     * them.
+     *
+     * @param out
+     *                       Where the graph is written, a buffered writer for a
+     *                       file.
+     * @param collapseLeaves
+     *                       True to collapse the covered leaves in their
+     *                       charging point.
+     * @throws IOException
+     *                     If out cannot be written.
+     */
+    public void toDot(Appendable out, boolean collapseLeaves) throws IOException {
+        DotWriter writer = new DotWriter(out, collapseLeaves);
+        // the number of leaves collapsed in each city, -1 for a collapsed leaf
+        int[] leaves = writer.leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (graph.degree(i) == 1 && !cities[i].hasChargingPoint()) {
+                graph.anyNeighbor(i, writer.findHub);
+                int neighbor = writer.hub;
+                if (cities[neighbor].hasChargingPoint()) {
+                    leaves[i] = -1;
+                    leaves[neighbor]++;
                 }
-                if(!charged) return false;
             }
         }
-        return true;
+
+        out.append("graph {\n");
+        for (int i = 0; i < cities.length; i++) {
+            if (collapseLeaves && leaves[i] == -1) {
+                continue;
+            }
+            appendId(out, cities[i].getName());
+            if (cities[i].hasChargingPoint()) {
+                out.append(" [style=filled, fillcolor=blue, fontcolor=white");
+                if (collapseLeaves && leaves[i] > 0) {
+                    out.append(", label=");
+                    appendId(out, cities[i].getName() + " (+" + leaves[i] + ")");
+                }
+                out.append(']');
+            }
+            out.append('\n');
+        }
+        try {
+            for (int i = 0; i < cities.length; i++) {
+                if (collapseLeaves && leaves[i] == -1) {
+                    continue;
+                }
+                writer.city = i;
+                graph.forEachNeighbor(i, writer.writeRoad);
+            }
+        } catch (UncheckedIOException err) {
+            throw err.getCause();
+        }
+        out.append("}\n");
     }
 
-    public String toDot() {
-        Set<City> visited = new HashSet<>();
-        StringBuffer sb = new StringBuffer();
-        sb.append("graph {\n");
-        // add city
-        for (City city : cities) {
-            sb.append(city.getName());
-            if (city.hasChargingPoint()) {
-                sb.append(" [style=filled, fillcolor=blue, fontcolor=white]");
+    /**
+     * Writes the roads of the urban community in the dot language. The
+     * visitors of the neighbors are kept in fields so the loops over the
+     * neighbors do not allocate.
+     */
+    private class DotWriter {
+
+        /**
+         * Where the graph is written.
+         */
+        private final Appendable out;
+
+        /**
+         * The number of leaves collapsed in each city, -1 for a collapsed
+         * leaf, empty when the leaves are not collapsed.
+         */
+        private final int[] leaves;
+
+        /**
+         * The city whose roads are written.
+         */
+        private int city;
+
+        /**
+         * The only neighbor of the last leaf visited by findHub.
+         */
+        private int hub;
+
+        /**
+         * Keeps the neighbor of a leaf in hub.
+         */
+        private final IntPredicate findHub;
+
+        /**
+         * Writes the road to a neighbor with a greater index, unless the
+         * neighbor is a collapsed leaf.
+         */
+        private final IntConsumer writeRoad;
+
+        private DotWriter(Appendable out, boolean collapseLeaves) {
+            this.out = out;
+            this.leaves = new int[collapseLeaves ? cities.length : 0];
+            findHub = neighbor -> {
+                hub = neighbor;
+                return true;
+            };
+            writeRoad = neighbor -> {
+                if (neighbor > city && !(leaves.length > 0 && leaves[neighbor] == -1)) {
+                    try {
+                        appendId(out, cities[city].getName());
+                        out.append(" -- ");
+                        appendId(out, cities[neighbor].getName());
+                        out.append('\n');
+                    } catch (IOException err) {
+                        // the roads are written from the loops over the neighbors
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Write a name as an identifier of the dot language, between quotes unless
+     * it is a plain word which is not a keyword, or a number.
+     *
+     * @param out
+     *             Where the identifier is written.
+     * @param name
+     *             The name.
+     * @throws IOException
+     *                     If out cannot be written.
+     */
+    private static void appendId(Appendable out, String name) throws IOException {
+        boolean word = !name.isEmpty() && !Character.isDigit(name.charAt(0));
+        boolean number = !name.isEmpty();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            word &= c == '_' || (c < 128 && Character.isLetterOrDigit(c));
+            number &= c >= '0' && c <= '9';
+        }
+        if (word) {
+            // the keywords of the dot language are not identifiers
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "graph":
+                case "digraph":
+                case "subgraph":
+                case "node":
+                case "edge":
+                case "strict":
+                    word = false;
+                    break;
+                default:
             }
-            sb.append("\n");
-            // add neighbors
-            for (City neighbors : getNeighbors(city.getName())) {
-                if (!visited.contains(neighbors))
-                    sb.append(String.format("%s -- %s%n", city.getName(), neighbors.getName()));
+        }
+        if (word || number) {
+            out.append(name);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
             }
-            visited.add(city);
+            out.append(c);
         }
-        sb.append("}");
-        return sb.toString();
+        out.append('"');
     }
 
     /**
@@ -292,12 +836,13 @@ public class UrbanCommunity {
      */
     @Override
     public String toString() {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         int charged = 0;
 
         // display cities
         sb.append("Display of the cities from this urban community :\n");
-        for (City city : cities) {
+        for (int i = 0; i < cities.length; i++) {
+            City city = cities[i];
             // Display city
             sb.append(city.getName()).append(" : ");
             // display the charge status of the city
@@ -309,11 +854,17 @@ public class UrbanCommunity {
             }
 
             // display neighbors
-            City[] neighbors = getNeighbors(city.getName());
-            if (neighbors.length > 0) {
+            int degree = graph.degree(i);
+            if (degree > 0) {
                 sb.append("\t > ");
-                sb.append((neighbors.length == 1) ? "Neighbor: ": "Neighbors: ");
-                sb.append((Arrays.stream(neighbors).map(c->c.getName()).collect(Collectors.joining(", "))));
+                sb.append((degree == 1) ? "Neighbor: " : "Neighbors: ");
+                int start = sb.length();
+                graph.forEachNeighbor(i, neighbor -> {
+                    if (sb.length() > start) {
+                        sb.append(", ");
+                    }
+                    sb.append(cities[neighbor].getName());
+                });
                 sb.append("\n");
             }
         }
@@ -0,0 +1,186 @@
+package graph;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents an unordered graph with an adjacency matrix packed in bits.
+ *
+ * <p>
+ * Each row of the matrix is an array of long, the vertex w is adjacent to v
+ * if the bit {@code w % 64} of the word {@code w / 64} of the row v is set.
+ * The rows can be combined with sets of vertices in the same format, a
+ * word at a time.
+ */
+public class BitsetGraph implements Graph {
+
+    /**
+     * The rows of the adjacency matrix of this graph.
+     */
+    private final long[][] rows;
+
+    /**
+     * The order of this graph.
+     */
+    private final int order;
+
+    /**
+     * The number of neighbors of each vertex, updated with the edges.
+     */
+    private final int[] degrees;
+
+    /**
+     * Create a new BitsetGraph object with the specified order.
+     *
+     * @param order The graph order
+     */
+    public BitsetGraph(int order) {
+        this.order = order;
+        rows = new long[order][words(order)];
+        degrees = new int[order];
+    }
+
+    /**
+     * Get the number of words needed by a set of vertices.
+     *
+     * @param order The graph order.
+     * @return The length of the array storing the set.
+     */
+    public static int words(int order) {
+        return (order + 63) >>> 6;
+    }
+
+    @Override
+    public int order() {
+        return order;
+    }
+
+    @Override
+    public boolean adjacent(int x, int y) {
+        return (rows[x][y >>> 6] & (1L << y)) != 0;
+    }
+
+    /**
+     * Get the number of neighbors of v.
+     *
+     * @param v The vertex.
+     * @return The number of neighbors.
+     */
+    @Override
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+    @Override
+    public int[] neighbors(int v) {
+        long[] row = rows[v];
+        int[] res = new int[degree(v)];
+        int i = 0;
+
+        for (int k = 0; k < row.length; k++) {
+            long word = row[k];
+            while (word != 0) {
+                res[i++] = (k << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action) {
+        long[] row = rows[v];
+        for (int k = 0; k < row.length; k++) {
+            long word = row[k];
+            while (word != 0) {
+                action.accept((k << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public boolean anyNeighbor(int v, IntPredicate predicate) {
+        long[] row = rows[v];
+        for (int k = 0; k < row.length; k++) {
+            long word = row[k];
+            while (word != 0) {
+                if (predicate.test((k << 6) + Long.numberOfTrailingZeros(word)))
+                    return true;
+                word &= word - 1;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNeighborIn(int v, long[] set) {
+        long[] row = rows[v];
+        for (int k = 0; k < row.length; k++)
+            if ((row[k] & set[k]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Add the neighbors of v to the set.
+     *
+     * @param v   The vertex.
+     * @param set The set of vertices to update.
+     */
+    public void orRow(int v, long[] set) {
+        long[] row = rows[v];
+        for (int k = 0; k < row.length; k++)
+            set[k] |= row[k];
+    }
+
+    /**
+     * Keep only the neighbors of v in the set.
+     *
+     * @param v   The vertex.
+     * @param set The set of vertices to update.
+     */
+    public void andRow(int v, long[] set) {
+        long[] row = rows[v];
+        for (int k = 0; k < row.length; k++)
+            set[k] &= row[k];
+    }
+
+    /**
+     * Get the number of neighbors of v in the set.
+     *
+     * @param v   The vertex.
+     * @param set The set of vertices.
+     * @return The number of vertices of the set adjacent to v.
+     */
+    public int countNeighborsIn(int v, long[] set) {
+        long[] row = rows[v];
+        int res = 0;
+        for (int k = 0; k < row.length; k++)
+            res += Long.bitCount(row[k] & set[k]);
+        return res;
+    }
+
+    @Override
+    public void addEdge(int x, int y) {
+        if (adjacent(x, y))
+            return;
+        rows[x][y >>> 6] |= 1L << y;
+        rows[y][x >>> 6] |= 1L << x;
+        degrees[x]++;
+        if (x != y)
+            degrees[y]++;
+    }
+
+    @Override
+    public void removeEdge(int x, int y) {
+        if (!adjacent(x, y))
+            return;
+        rows[x][y >>> 6] &= ~(1L << y);
+        rows[y][x >>> 6] &= ~(1L << x);
+        degrees[x]--;
+        if (x != y)
+            degrees[y]--;
+    }
+}
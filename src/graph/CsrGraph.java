@@ -0,0 +1,138 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents an immutable unordered graph in the compressed sparse row
+ * format.
+ *
+ * <p>
+ * The neighbors of the vertex v are stored in ascending order in
+ * {@code targets[offsets[v]]} to {@code targets[offsets[v + 1] - 1]}, so the
+ * memory used by this graph grows with the number of edges instead of the
+ * square of its order.
+ */
+public class CsrGraph implements Graph {
+
+    /**
+     * The start of the neighbors of each vertex in targets, the last value is
+     * the length of targets.
+     */
+    private final int[] offsets;
+
+    /**
+     * The neighbors of all the vertices, row after row.
+     */
+    private final int[] targets;
+
+    /**
+     * Create a new CsrGraph object with the specified order and edges.
+     *
+     * <p>
+     * The edges are undirected, duplicated edges are only stored once.
+     *
+     * @param order The graph order.
+     * @param edges The edges of the graph.
+     * @throws IllegalArgumentException If an edge has an end outside of the
+     *                                  graph.
+     */
+    public CsrGraph(int order, EdgeList edges) {
+        int[] start = new int[order + 1];
+
+        // count the degree of each vertex, shifted by one for the prefix sum
+        for (int i = 0; i < edges.size; i++) {
+            int x = edges.sources[i];
+            int y = edges.targets[i];
+            if (x < 0 || x >= order || y < 0 || y >= order)
+                throw new IllegalArgumentException("The edge " + x + "-" + y + " is not in the graph");
+            start[x + 1]++;
+            if (x != y)
+                start[y + 1]++;
+        }
+        for (int v = 0; v < order; v++)
+            start[v + 1] += start[v];
+
+        // fill the rows
+        int[] res = new int[start[order]];
+        int[] cursor = Arrays.copyOf(start, order);
+        for (int i = 0; i < edges.size; i++) {
+            int x = edges.sources[i];
+            int y = edges.targets[i];
+            res[cursor[x]++] = y;
+            if (x != y)
+                res[cursor[y]++] = x;
+        }
+
+        // sort the rows and remove the duplicated edges in place
+        int length = 0;
+        for (int v = 0; v < order; v++) {
+            int from = start[v];
+            int to = start[v + 1];
+            start[v] = length;
+            Arrays.sort(res, from, to);
+            for (int i = from; i < to; i++)
+                if (i == from || res[i] != res[i - 1])
+                    res[length++] = res[i];
+        }
+        start[order] = length;
+
+        offsets = start;
+        targets = length == res.length ? res : Arrays.copyOf(res, length);
+    }
+
+    @Override
+    public int order() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public boolean adjacent(int x, int y) {
+        return Arrays.binarySearch(targets, offsets[x], offsets[x + 1], y) >= 0;
+    }
+
+    @Override
+    public int[] neighbors(int v) {
+        return Arrays.copyOfRange(targets, offsets[v], offsets[v + 1]);
+    }
+
+    @Override
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action) {
+        for (int i = offsets[v]; i < offsets[v + 1]; i++)
+            action.accept(targets[i]);
+    }
+
+    @Override
+    public boolean anyNeighbor(int v, IntPredicate predicate) {
+        for (int i = offsets[v]; i < offsets[v + 1]; i++)
+            if (predicate.test(targets[i]))
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean hasNeighborIn(int v, long[] set) {
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            int w = targets[i];
+            if ((set[w >>> 6] & (1L << w)) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void addEdge(int x, int y) {
+        throw new UnsupportedOperationException("A CsrGraph is immutable");
+    }
+
+    @Override
+    public void removeEdge(int x, int y) {
+        throw new UnsupportedOperationException("A CsrGraph is immutable");
+    }
+}
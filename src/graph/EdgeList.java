@@ -0,0 +1,106 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of edges, used to build a {@link CsrGraph}.
+ *
+ * <p>
+ * The two ends of the edges are stored in two int arrays, so adding an edge
+ * does not allocate any object.
+ */
+public class EdgeList {
+
+    /**
+     * The first end of each edge.
+     */
+    int[] sources;
+
+    /**
+     * The second end of each edge.
+     */
+    int[] targets;
+
+    /**
+     * The number of edges in this list.
+     */
+    int size;
+
+    /**
+     * Create a new empty EdgeList object.
+     */
+    public EdgeList() {
+        this(16);
+    }
+
+    /**
+     * Create a new empty EdgeList object with the specified capacity.
+     *
+     * @param capacity The number of edges that can be added before resizing.
+     */
+    public EdgeList(int capacity) {
+        sources = new int[Math.max(capacity, 1)];
+        targets = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Create a new EdgeList object with the ends of the edges given in
+     * parameter, the arrays are used without copy.
+     *
+     * @param sources The first end of each edge.
+     * @param targets The second end of each edge, as many as sources.
+     */
+    public EdgeList(int[] sources, int[] targets) {
+        if (sources.length != targets.length)
+            throw new IllegalArgumentException("Each edge needs two ends");
+        this.sources = sources;
+        this.targets = targets;
+        size = sources.length;
+    }
+
+    /**
+     * Add the edge between x and y to this list.
+     *
+     * @param x The first vertex.
+     * @param y The second vertex.
+     */
+    public void add(int x, int y) {
+        if (size == sources.length) {
+            int capacity = size + (size >> 1) + 1;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+        sources[size] = x;
+        targets[size] = y;
+        size++;
+    }
+
+    /**
+     * Get the number of edges in this list.
+     *
+     * @return The number of edges.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the first end of an edge.
+     *
+     * @param i The index of the edge.
+     * @return The first vertex of the edge.
+     */
+    public int source(int i) {
+        return sources[i];
+    }
+
+    /**
+     * Get the second end of an edge.
+     *
+     * @param i The index of the edge.
+     * @return The second vertex of the edge.
+     */
+    public int target(int i) {
+        return targets[i];
+    }
+}
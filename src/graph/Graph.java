@@ -1,79 +1,102 @@
 package graph;
 
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
 /**
- * Represents an unordered graph with an adjacency matrix.
+ * Represents an unordered graph whose vertices are numbered from 0 to
+ * {@code order() - 1}.
+ *
+ * <p>
+ * The adding and removing of edges are optional operations, an immutable
+ * implementation throws an {@link UnsupportedOperationException}.
+ *
+ * @see CsrGraph
+ * @see BitsetGraph
  */
-public class Graph {
-
-    /** 
-     * The adjacency matrix of this graph
-     */
-    private final boolean[][] matrix;
+public interface Graph {
 
     /**
-     * Create a new Graph object with the specified order.
-     * @param order The graph order
+     * Get the order of this graph.
+     *
+     * @return The number of vertices.
      */
-    public Graph(int order) {
-        // init value is false
-        matrix = new boolean[order][order];
-    }
+    int order();
 
     /**
      * Check if x and y are adjacent in this graph.
-     * @param x
-     * @param y
+     *
+     * @param x The first vertex.
+     * @param y The second vertex.
      * @return true if x and y are adjacent, false otherwise.
      */
-    public boolean adjacent(int x, int y) {
-        return matrix[x][y];
-    }
+    boolean adjacent(int x, int y);
+
+    /**
+     * Get all the neighbors of vertex v.
+     *
+     * @param v The vertex.
+     * @return An array of the neighbors of v, in ascending order.
+     */
+    int[] neighbors(int v);
 
     /**
      * Get the number of neighbors of v.
+     *
      * @param v The vertex.
      * @return The number of neighbors.
      */
-    private int nbNeighbors(int v) {
-        int res = 0;
-        for(int w=0;w< matrix.length;w++)
-            if(adjacent(v, w)) res++;
-        return res;
-    }
-
+    int degree(int v);
 
     /**
-     * Get all the neighbors of vertex v.
-     * @param v The vertex.
-     * @return An array of the neighbors of v.
+     * Perform the action for each neighbor of v, in ascending order, without
+     * allocating an array.
+     *
+     * @param v      The vertex.
+     * @param action The action to perform.
      */
-    public int[] neighbors(int v) {
-        int i=0;
-        int[] res = new int[nbNeighbors(v)];
+    void forEachNeighbor(int v, IntConsumer action);
 
-        for(int w=0;w< matrix.length;w++)
-            if(adjacent(v,w)) res[i++] = w;
+    /**
+     * Check if a neighbor of v matches the predicate, without allocating an
+     * array. The neighbors are tested in ascending order until one matches.
+     *
+     * @param v         The vertex.
+     * @param predicate The predicate to test.
+     * @return true if a neighbor of v matches the predicate, false otherwise.
+     */
+    boolean anyNeighbor(int v, IntPredicate predicate);
 
-        return res;
+    /**
+     * Check if v has a neighbor in the set.
+     *
+     * <p>
+     * The set is packed in an array of long, the vertex w is in the set if the
+     * bit {@code w % 64} of the word {@code w / 64} is set.
+     *
+     * @param v   The vertex.
+     * @param set The set of vertices.
+     * @return true if a neighbor of v is in the set, false otherwise.
+     */
+    default boolean hasNeighborIn(int v, long[] set) {
+        return anyNeighbor(v, w -> (set[w >>> 6] & (1L << w)) != 0);
     }
 
     /**
      * Create an edge between x and y.
-     * @param x The first vertex
-     * @param y The second vertex
+     *
+     * @param x The first vertex.
+     * @param y The second vertex.
+     * @throws UnsupportedOperationException If this graph is immutable.
      */
-    public void addEdge(int x, int y) {
-        matrix[x][y] = true;
-        matrix[y][x] = true;
-    }
+    void addEdge(int x, int y);
 
     /**
      * Remove the edge between x and y.
+     *
      * @param x The first vertex.
      * @param y The second vertex.
+     * @throws UnsupportedOperationException If this graph is immutable.
      */
-    public void removeEdge(int x, int y) {
-        matrix[x][y] = false;
-        matrix[y][x] = false;
-    }
+    void removeEdge(int x, int y);
 }
@@ -1,6 +1,10 @@
 package ui;
 
 import core.Algorithm;
+import core.Budget;
+import core.CityOrder;
+import core.Portfolio;
+import core.Solver;
 import core.UrbanCommunity;
 import core.City;
 import core.ConfigParser;
@@ -8,10 +12,39 @@ import exceptions.AccessibilityException;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 public class Cli {
+    /**
+     * The largest number of cities shown with all their leaves, the covered
+     * leaves of larger urban communities are collapsed in their charging
+     * point.
+     */
+    private static final int MAX_DETAILED_CITIES = 1000;
+
+    /**
+     * The largest number of cities listed with their neighbors on each menu,
+     * only a summary of larger urban communities is shown.
+     */
+    private static final int MAX_LISTED_CITIES = 26;
+
+    /**
+     * The number of cities in a page of a list.
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * The largest number of cities entered by hand, their roads are kept in an
+     * adjacency matrix packed in bits.
+     */
+    private static final int MAX_MANUAL_CITIES = 10000;
+
     /**
      * An instance of Scanner used to read user input.
      */
@@ -72,11 +105,15 @@ public class Cli {
 
         // Ask the number of cities
         do {
-            nbCities = readInt("How many cities do you want to have?");
+            nbCities = readInt("How many cities do you want to have? (at most " + MAX_MANUAL_CITIES + ")");
             // Check if the number is valid
-            if (nbCities < 1 || nbCities > 26) {
-                System.out.println("The number of cities must be between 1 and 26 included!");
+            if (nbCities < 1) {
+                System.out.println("There must be at least one city!");
                 nbCities = 0; // We will ask again
+            } else if (nbCities > MAX_MANUAL_CITIES) {
+                System.out.println("There must be at most " + MAX_MANUAL_CITIES
+                        + " cities, load a larger urban community from a file!");
+                nbCities = 0;
             }
             System.out.println();
         } while (nbCities == 0);
@@ -84,13 +121,177 @@ public class Cli {
         cities = new City[nbCities];
 
         // Create cities with letters
-        for (char c = 'A'; c < 'A' + nbCities; c++) {
-            cities[c - 'A'] = new City(String.valueOf(c));
+        for (int i = 0; i < nbCities; i++) {
+            cities[i] = new City(letters(i));
         }
 
         return cities;
     }
 
+    /**
+     * Get the name of a city made of letters like the columns of a
+     * spreadsheet: A to Z, then AA to ZZ, then AAA and so on.
+     *
+     * @param index The index of the city.
+     * @return The name of the city.
+     */
+    private static String letters(int index) {
+        StringBuilder sb = new StringBuilder();
+        // bijective base 26, there is no zero digit
+        for (long n = index + 1L; n > 0; n = (n - 1) / 26) {
+            sb.append((char) ('A' + (n - 1) % 26));
+        }
+        return sb.reverse().toString();
+    }
+
+    /**
+     * Print the cities with their neighbors for a small urban community, or a
+     * summary computed from the counters of the urban community otherwise.
+     */
+    private void printOverview() {
+        if (urbanCommunity.getCities().length <= MAX_LISTED_CITIES)
+            System.out.println(urbanCommunity);
+        else
+            printSummary();
+    }
+
+    /**
+     * Print the number of cities, charging points and uncovered cities.
+     */
+    private void printSummary() {
+        System.out.printf("%d cities, %d charging points, %d cities not covered.%n",
+                urbanCommunity.getCities().length, urbanCommunity.urbanCommunityScore(),
+                urbanCommunity.getUncoveredCount());
+    }
+
+    /**
+     * Lets the user look at the urban community.
+     */
+    private void viewMenu() {
+        int choice;
+
+        do {
+            System.out.println("What do you want to see?");
+            System.out.println("1) Summary");
+            System.out.println("2) A city");
+            System.out.println("3) The cities not covered");
+            System.out.println("4) The charging points");
+            System.out.println("5) The number of cities by number of neighbors");
+            System.out.println("6) All the cities with their neighbors");
+            System.out.println("7) Finish");
+
+            choice = readInt("Enter your selection:");
+
+            switch (choice) {
+                case 1:
+                    printSummary();
+                    break;
+                case 2:
+                    System.out.println("Enter the name of the city:");
+                    printCity(sc.nextLine());
+                    break;
+                case 3:
+                    printPages(i -> !urbanCommunity.isCovered(i), urbanCommunity.getUncoveredCount());
+                    break;
+                case 4:
+                    printPages(urbanCommunity::hasChargingPoint, urbanCommunity.urbanCommunityScore());
+                    break;
+                case 5:
+                    printDegrees();
+                    break;
+                case 6:
+                    System.out.println(urbanCommunity);
+                    break;
+                case 7:
+                    break;
+                default:
+                    System.out.println("Invalid action!");
+            }
+            System.out.println();
+        } while (choice != 7);
+    }
+
+    /**
+     * Print a city, its charging point and its neighbors.
+     *
+     * @param name The name of the city.
+     */
+    private void printCity(String name) {
+        int indexCity = urbanCommunity.getCityIndex(name);
+        if (indexCity == -1) {
+            System.out.println("The city " + name + " does not exist!");
+            return;
+        }
+
+        City city = urbanCommunity.getCities()[indexCity];
+        System.out.printf("%s %s a charging point and %s covered.%n", city.getName(),
+                city.hasChargingPoint() ? "has" : "does not have",
+                urbanCommunity.isCovered(indexCity) ? "is" : "is not");
+        City[] neighbors = urbanCommunity.getNeighbors(indexCity);
+        StringBuilder sb = new StringBuilder();
+        for (City neighbor : neighbors) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(neighbor.getName());
+            if (neighbor.hasChargingPoint())
+                sb.append(" (charging point)");
+        }
+        System.out.printf("%d neighbors: %s%n", neighbors.length, sb);
+    }
+
+    /**
+     * Print the names of the cities matching the filter, page by page. The
+     * cities are only read up to the end of the shown pages.
+     *
+     * @param filter The filter of the cities, by index.
+     * @param count  The number of cities matching the filter.
+     */
+    private void printPages(IntPredicate filter, int count) {
+        City[] cities = urbanCommunity.getCities();
+        System.out.printf("%d cities:%n", count);
+        int shown = 0;
+        for (int i = 0; i < cities.length && shown < count; i++) {
+            if (!filter.test(i))
+                continue;
+            System.out.println(cities[i].getName());
+            shown++;
+            if (shown % PAGE_SIZE == 0 && shown < count) {
+                System.out.printf("%d of %d shown, press enter for more or q to stop.%n", shown, count);
+                if (sc.nextLine().trim().equalsIgnoreCase("q"))
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Print the number of cities and of charging points by number of
+     * neighbors.
+     */
+    private void printDegrees() {
+        int nbCities = urbanCommunity.getCities().length;
+        int maxDegree = 0;
+        for (int i = 0; i < nbCities; i++)
+            maxDegree = Math.max(maxDegree, urbanCommunity.getDegree(i));
+
+        int[] cities = new int[maxDegree + 1];
+        int[] chargingPoints = new int[maxDegree + 1];
+        long nbRoads = 0;
+        for (int i = 0; i < nbCities; i++) {
+            int degree = urbanCommunity.getDegree(i);
+            cities[degree]++;
+            if (urbanCommunity.hasChargingPoint(i))
+                chargingPoints[degree]++;
+            nbRoads += degree;
+        }
+
+        System.out.printf("%d cities, %d roads.%n", nbCities, nbRoads / 2);
+        System.out.println("neighbors\tcities\tcharging points");
+        for (int degree = 0; degree <= maxDegree; degree++) {
+            if (cities[degree] > 0)
+                System.out.printf("%d\t\t%d\t%d%n", degree, cities[degree], chargingPoints[degree]);
+        }
+    }
+
     /**
      * Lets the user create road between cities.
      */
@@ -134,7 +335,7 @@ public class Cli {
         String city;
 
         do {
-            System.out.println(urbanCommunity);
+            printOverview();
             System.out.println("Do you want to edit charging point?");
             System.out.println("1) Add a charging point");
             System.out.println("2) Remove a charging point");
@@ -170,36 +371,196 @@ public class Cli {
             }
             System.out.println();
         } while (choice != 3);
-        System.out.println(urbanCommunity);
+        printOverview();
     }
 
     private void chooseAlgo() {
         int choice;
-        int nbIter;
+        Consumer<UrbanCommunity> algorithm;
+        AtomicBoolean optimal = null;
 
         do {
             System.out.println("Which algo do you want to use?");
             System.out.println("1) Naive algo");
             System.out.println("2) Less naive algo");
             System.out.println("3) More optimized algo");
-            System.out.println("4) Finish");
+            System.out.println("4) Exact algo");
+            System.out.println("5) Greedy algo");
+            System.out.println("6) Parallel less naive algo");
+            System.out.println("7) Simulated annealing");
+            System.out.println("8) Tabu search");
+            System.out.println("9) Race several algos");
+            System.out.println("10) Finish");
 
             choice = readInt("Enter your selection:");
+            algorithm = null;
 
             switch (choice) {
                 case 1:
-                    Algorithm.addAllChargingPoint(urbanCommunity);
-                    nbIter = readInt("How many iterations?");
-                    Algorithm.naiveAlgorithm(urbanCommunity, nbIter);
+                    int naiveIter = readInt("How many iterations?");
+                    algorithm = uc -> {
+                        Algorithm.addAllChargingPoint(uc);
+                        Algorithm.naiveAlgorithm(uc, naiveIter);
+                    };
                     break;
                 case 2:
-                    Algorithm.addAllChargingPoint(urbanCommunity);
-                    nbIter = readInt("How many iterations?");
-                    Algorithm.lessNaiveAlgorithm(urbanCommunity, nbIter);
+                    int lessNaiveIter = readInt("How many iterations?");
+                    long lessNaiveMillis = readInt("How many seconds at most?") * 1000L;
+                    algorithm = uc -> {
+                        Algorithm.addAllChargingPoint(uc);
+                        Algorithm.lessNaiveAlgorithm(uc, lessNaiveIter, new Budget(lessNaiveMillis));
+                    };
                     break;
                 case 3:
-                    Algorithm.addAllChargingPoint(urbanCommunity);
-                    Algorithm.algoOpti(urbanCommunity);
+                    CityOrder order = chooseOrder();
+                    algorithm = uc -> {
+                        Algorithm.addAllChargingPoint(uc);
+                        Algorithm.algoOpti(uc, order);
+                    };
+                    break;
+                case 4:
+                    long exactMillis = readInt("How many seconds at most?") * 1000L;
+                    AtomicBoolean exactOptimal = new AtomicBoolean(true);
+                    algorithm = uc -> {
+                        int nbCities = uc.getCities().length;
+                        if (nbCities > Algorithm.MAX_EXACT_CITIES) {
+                            System.out.printf("%d cities are too many for the exact algo (at most %d), the greedy"
+                                    + " algo is used instead. Try it on the reduced urban community or on each"
+                                    + " connected component.%n", nbCities, Algorithm.MAX_EXACT_CITIES);
+                            Algorithm.greedyAlgorithm(uc);
+                            exactOptimal.set(false);
+                        } else if (!Algorithm.exactAlgorithm(uc, Long.MAX_VALUE, exactMillis)) {
+                            exactOptimal.set(false);
+                        }
+                    };
+                    optimal = exactOptimal;
+                    break;
+                case 5:
+                    algorithm = Algorithm::greedyAlgorithm;
+                    break;
+                case 6:
+                    int multiStartIter = readInt("How many iterations?");
+                    long multiStartMillis = readInt("How many seconds at most?") * 1000L;
+                    algorithm = uc -> Algorithm.multiStartAlgorithm(uc, multiStartIter,
+                            Runtime.getRuntime().availableProcessors(), System.nanoTime(),
+                            new Budget(multiStartMillis));
+                    break;
+                case 7:
+                    long annealingMillis = readInt("How many seconds?") * 1000L;
+                    algorithm = uc -> Algorithm.annealingAlgorithm(uc, Long.MAX_VALUE, annealingMillis, 1, 0.05,
+                            System.nanoTime());
+                    break;
+                case 8:
+                    long tabuMillis = readInt("How many seconds?") * 1000L;
+                    algorithm = uc -> Algorithm.tabuAlgorithm(uc, Long.MAX_VALUE, tabuMillis, 10, System.nanoTime());
+                    break;
+                case 9:
+                    long raceMillis = readInt("How many seconds at most?") * 1000L;
+                    AtomicBoolean raceOptimal = new AtomicBoolean(true);
+                    algorithm = uc -> {
+                        long seed = System.nanoTime();
+                        List<Solver> solvers = new ArrayList<>();
+                        solvers.add(Solver.greedy());
+                        solvers.add(Solver.annealing(1, 0.05, seed));
+                        solvers.add(Solver.tabu(10, seed + 1));
+                        solvers.add(Solver.multiStart(Integer.MAX_VALUE, 1, seed + 2));
+                        if (uc.getCities().length <= Algorithm.MAX_EXACT_CITIES)
+                            solvers.add(Solver.exact());
+                        Budget budget = new Budget(raceMillis);
+                        new Portfolio(solvers.toArray(new Solver[0])).solve(uc, budget);
+                        if (!budget.isOptimal())
+                            raceOptimal.set(false);
+                    };
+                    optimal = raceOptimal;
+                    break;
+                case 10:
+                    break;
+                default:
+                    System.out.println("Invalid action!");
+            }
+
+            System.out.println();
+        } while (choice < 1 || choice > 10);
+
+        if (algorithm != null) {
+            boolean keepsOptimality = runAlgo(algorithm);
+            if (optimal != null && !keepsOptimality)
+                System.out.println("The regions were solved apart, this solution may not be optimal.");
+            else if (optimal != null && optimal.get())
+                System.out.println("This solution is optimal.");
+            else if (optimal != null)
+                System.out.println("Time is up, this solution may not be optimal.");
+            System.out.printf("%d charging points, at least %d are needed (gap: %.1f%%).%n",
+                    urbanCommunity.urbanCommunityScore(), urbanCommunity.lowerBound(),
+                    urbanCommunity.optimalityGap() * 100);
+        }
+    }
+
+    /**
+     * Lets the user choose the order in which the charging points are removed.
+     *
+     * @return The order chosen by the user.
+     */
+    private CityOrder chooseOrder() {
+        CityOrder[] orders = CityOrder.values();
+        int choice;
+
+        do {
+            System.out.println("In which order?");
+            System.out.println("1) Fewest neighbors first");
+            System.out.println("2) Most neighbors first");
+            System.out.println("3) Outskirts first (degeneracy)");
+            System.out.println("4) Most covered first (redundancy)");
+
+            choice = readInt("Enter your selection:");
+            if (choice < 1 || choice > orders.length)
+                System.out.println("Invalid action!");
+        } while (choice < 1 || choice > orders.length);
+
+        return orders[choice - 1];
+    }
+
+    /**
+     * Lets the user choose how to run the algorithm on the urban community.
+     *
+     * @param algorithm The algorithm chosen by the user.
+     * @return False if the way it was run does not keep an optimal solution
+     *         optimal, true otherwise.
+     */
+    private boolean runAlgo(Consumer<UrbanCommunity> algorithm) {
+        int choice;
+
+        do {
+            System.out.println("How do you want to run it?");
+            System.out.println("1) On the whole urban community");
+            System.out.println("2) On the reduced urban community");
+            System.out.println("3) On each connected component at the same time");
+            System.out.println("4) On several regions at the same time");
+
+            choice = readInt("Enter your selection:");
+
+            switch (choice) {
+                case 1:
+                    algorithm.accept(urbanCommunity);
+                    break;
+                case 2:
+                    int nbCities = Algorithm.kernelAlgorithm(urbanCommunity, algorithm);
+                    System.out.printf("The algo ran on %d cities out of %d.%n", nbCities,
+                            urbanCommunity.getCities().length);
+                    break;
+                case 3:
+                    int nbComponents = Algorithm.componentAlgorithm(urbanCommunity, algorithm);
+                    System.out.printf("The algo ran on %d connected components.%n", nbComponents);
+                    break;
+                case 4:
+                    int nbRegions = readInt("How many regions?");
+                    if (nbRegions < 1) {
+                        System.out.println("There must be at least one region!");
+                        choice = 0;
+                        break;
+                    }
+                    int nbCutRoads = Algorithm.partitionAlgorithm(urbanCommunity, nbRegions, algorithm);
+                    System.out.printf("The regions were joined by %d roads.%n", nbCutRoads);
                     break;
                 default:
                     System.out.println("Invalid action!");
@@ -207,6 +568,8 @@ public class Cli {
 
             System.out.println();
         } while (choice < 1 || choice > 4);
+
+        return choice != 4;
     }
 
     /**
@@ -216,14 +579,16 @@ public class Cli {
         int choice;
 
         do {
-            System.out.println(urbanCommunity);
+            printOverview();
 
             System.out.println("What do you want to do?");
             System.out.println("1) Resolve manually");
             System.out.println("2) Resolve automatically");
-            System.out.println("3) Save");
-            System.out.println("4) Show urban community");
-            System.out.println("5) Finish");
+            System.out.println("3) Improve the current solution");
+            System.out.println("4) Save");
+            System.out.println("5) Show urban community");
+            System.out.println("6) View the cities");
+            System.out.println("7) Finish");
 
             choice = readInt("Enter your selection:");
 
@@ -237,6 +602,15 @@ public class Cli {
                     chooseAlgo();
                     break;
                 case 3:
+                    if (!urbanCommunity.isValid()) {
+                        System.out.println("The current solution is not valid!");
+                        break;
+                    }
+                    int removed = Algorithm.postOptimization(urbanCommunity);
+                    System.out.printf("%d charging points removed, at least %d are needed (gap: %.1f%%).%n", removed,
+                            urbanCommunity.lowerBound(), urbanCommunity.optimalityGap() * 100);
+                    break;
+                case 4:
                     // get the file name
                     String filename;
                     do {
@@ -255,17 +629,21 @@ public class Cli {
                         System.err.println("Can't access this file!");
                     }
                     break;
-                case 4:
-                    GraphVizUtil.displayGraph(urbanCommunity.toDot());
-                    break;
                 case 5:
+                    GraphVizUtil.displayGraph(urbanCommunity,
+                            urbanCommunity.getCities().length > MAX_DETAILED_CITIES);
+                    break;
+                case 6:
+                    viewMenu();
+                    break;
+                case 7:
                     System.out.println("Good bye!");
                     break;
                 default:
                     System.out.println("Invalid action!");
             }
             System.out.println();
-        } while (choice != 5);
+        } while (choice != 7);
     }
 
     /**
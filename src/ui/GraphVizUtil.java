@@ -1,33 +1,97 @@
 package ui;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.awt.Desktop;
 
+import core.UrbanCommunity;
+
+/**
+ * Renders the graphs in the dot language with GraphViz and shows them.
+ *
+ * <p>
+ * The graph is written to the standard input of dot while its image is read
+ * from its standard output, on two threads, so dot never waits for a full
+ * pipe. The images are kept by the digest of their graph, so showing an
+ * unchanged urban community again does not run dot.
+ *
+ * <p>
+ * The dot command is "dot" unless the system property graphviz.dot gives
+ * another one, or {@link #setDotCommand(String)} is called, for example with a
+ * script standing in for GraphViz.
+ */
 public class GraphVizUtil {
 
     /**
-     * Create a new temp file and write dot inside.
-     * 
-     * @param dot A graph in the dot language.
-     * @return The temp dot file.
-     * @throws IOException
+     * The number of images kept.
+     */
+    private static final int MAX_CACHED_IMAGES = 16;
+
+    /**
+     * The command running GraphViz.
+     */
+    private static String dotCommand = System.getProperty("graphviz.dot", "dot");
+
+    /**
+     * Whether GraphViz was found, null if it was not checked yet.
+     */
+    private static Boolean graphVizFound;
+
+    /**
+     * The images by the digest of their graph, the least recently used first.
      */
-    private static File saveDotFile(String dot) throws IOException {
-        File file = File.createTempFile("paa_dot", ".dot");
-        try (FileWriter fw = new FileWriter(file)) {
-            fw.write(dot);
+    private static final Map<String, File> IMAGES = new LinkedHashMap<>(MAX_CACHED_IMAGES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+            return size() > MAX_CACHED_IMAGES;
         }
-        file.deleteOnExit();
-        return file;
+    };
+
+    /**
+     * Something written in the dot language.
+     */
+    @FunctionalInterface
+    interface DotSource {
+
+        /**
+         * Write the graph in the dot language.
+         *
+         * @param out Where the graph is written.
+         * @throws IOException
+         */
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    /**
+     * Set the command running GraphViz, GraphViz is then checked again and the
+     * images are rendered again.
+     *
+     * @param command The dot command, or the path of a script behaving like it.
+     */
+    public static synchronized void setDotCommand(String command) {
+        dotCommand = command;
+        graphVizFound = null;
+        IMAGES.clear();
     }
 
     /**
-     * Create a temp png file.
-     * 
+     * Create a temp svg file.
+     *
      * @return The image file.
      * @throws IOException
      */
@@ -38,63 +102,162 @@ public class GraphVizUtil {
     }
 
     /**
-     * Check if the system has graphviz in the path.
-     * 
+     * Check if the system has graphviz in the path, the first time only.
+     *
      * @return true if graphviz is found, false otherwise.
      */
-    private static boolean hasGraphViz() {
-        boolean res = false;
-        try {
-            Process p = Runtime.getRuntime().exec("dot -V");
-            p.waitFor();
-            if (p.exitValue() == 0) {
-                res = true;
+    private static synchronized boolean hasGraphViz() {
+        if (graphVizFound == null) {
+            boolean res = false;
+            try {
+                Process p = new ProcessBuilder(dotCommand, "-V").redirectOutput(Redirect.DISCARD)
+                        .redirectError(Redirect.DISCARD).start();
+                res = p.waitFor() == 0;
+            } catch (IOException ignored) {
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                return false;
             }
-        } catch (IOException | InterruptedException ignored) {
+            graphVizFound = res;
+        }
+        return graphVizFound;
+    }
+
+    /**
+     * Compute the digest of the graph, the key of its image.
+     *
+     * @param source The graph.
+     * @return The digest in hexadecimal.
+     * @throws IOException
+     */
+    private static String digest(DotSource source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException err) {
+            throw new IllegalStateException("SHA-256 is always available", err);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(
+                OutputStream.nullOutputStream(), digest), StandardCharsets.UTF_8))) {
+            source.writeTo(writer);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * Get the svg image of the graph, rendered by dot unless the same graph was
+     * already rendered.
+     *
+     * @param source The graph.
+     * @return The image file.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    static File render(DotSource source) throws IOException, InterruptedException {
+        String key = digest(source);
+        synchronized (GraphVizUtil.class) {
+            File image = IMAGES.get(key);
+            if (image != null && image.isFile())
+                return image;
+        }
+
+        File image = getImageOutput();
+        generateImage(source, image);
+        synchronized (GraphVizUtil.class) {
+            IMAGES.put(key, image);
         }
-        return res;
+        return image;
     }
 
     /**
-     * Call dot and create the image. This function is like `dot -Tpng dotFile >
-     * outFile` in the terminal.
-     * 
-     * @param dotFile The file who contains the graph in the dot language.
+     * Call dot and create the image. This function is like `dot -Tsvg >
+     * outFile` in the terminal, the graph being written to its standard input.
+     *
+     * @param source  The graph.
      * @param outFile The output image file.
      * @throws IOException
      * @throws InterruptedException
      */
-    private static void generateImage(File dotFile, File outFile) throws IOException, InterruptedException {
-        String command = String.format("dot -Tsvg %s", dotFile.getAbsolutePath());
-        Process p = Runtime.getRuntime().exec(command);
-        int exitCode = p.waitFor();
-        if (exitCode != 0)
-            throw new IOException("Error when execute dot.");
-        Files.copy(p.getInputStream(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    private static void generateImage(DotSource source, File outFile) throws IOException, InterruptedException {
+        String command;
+        synchronized (GraphVizUtil.class) {
+            command = dotCommand;
+        }
+        Process p = new ProcessBuilder(command, "-Tsvg").redirectError(Redirect.DISCARD).start();
+
+        // write the graph while the image is read, dot may write before it
+        // reads everything
+        IOException[] writeError = new IOException[1];
+        Thread writer = new Thread(() -> {
+            try (Writer in = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8))) {
+                source.writeTo(in);
+            } catch (IOException err) {
+                writeError[0] = err;
+            }
+        }, "dot-input");
+        writer.setDaemon(true);
+        writer.start();
+
+        try {
+            Files.copy(p.getInputStream(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            int exitCode = p.waitFor();
+            writer.join();
+            if (exitCode != 0)
+                throw new IOException("Error when execute dot.");
+            if (writeError[0] != null)
+                throw writeError[0];
+        } finally {
+            p.destroy();
+        }
     }
 
     /**
      * Display the graph in the system image viewer if possible.
-     * 
+     *
      * @param dot The graph in the dot language.
      */
     public static void displayGraph(String dot) {
+        display(out -> out.append(dot));
+    }
+
+    /**
+     * Display the urban community in the system image viewer if possible. The
+     * graph is written to dot as it is produced.
+     *
+     * @param urbanCommunity The urban community.
+     * @param collapseLeaves True to collapse the covered leaves in their
+     *                       charging point, for large urban communities.
+     */
+    public static void displayGraph(UrbanCommunity urbanCommunity, boolean collapseLeaves) {
+        display(out -> urbanCommunity.toDot(out, collapseLeaves));
+    }
+
+    /**
+     * Render the graph and open its image in the system image viewer.
+     *
+     * @param source The graph.
+     */
+    private static void display(DotSource source) {
         if (!hasGraphViz()) {
             System.out.println("Warning: GraphViz is not found!");
             return;
         }
         try {
-            File dotFile = saveDotFile(dot);
-            File outFile = getImageOutput();
-            generateImage(dotFile, outFile);
+            File outFile = render(source);
             if(!Desktop.isDesktopSupported()){
                 System.out.println("Warning: Desktop is not suported.");
                 return;
             }
             Desktop.getDesktop().open(outFile);
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             System.out.println("Warning: can't show the graph!");
             System.out.println(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 